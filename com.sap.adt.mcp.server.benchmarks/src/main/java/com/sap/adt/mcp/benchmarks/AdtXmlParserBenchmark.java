@@ -0,0 +1,150 @@
+package com.sap.adt.mcp.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
+import com.sap.adt.mcp.sap.AdtXmlParser;
+
+/**
+ * Throughput of the {@link AdtXmlParser} methods on ADT responses of several
+ * sizes. {@code entries} is the number of hits, messages, findings, rows,
+ * includes or paragraphs in the response; 1 shows the fixed cost per call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AdtXmlParserBenchmark {
+
+    @Param({ "1", "50", "1000" })
+    public int entries;
+
+    private String searchResults;
+    private String searchResultsUnmatched;
+    private String lockResult;
+    private String checkRun;
+    private String activation;
+    private String unitTestRun;
+    private String dataPreview;
+    private byte[] dataPreviewBytes;
+    private String atcWorklist;
+    private String inactiveObjects;
+    private String classStructure;
+    private String docuXml;
+    private String docuHtml;
+
+    @Setup
+    public void loadFixtures() {
+        searchResults = Fixtures.load("search-hits.xml", entries);
+        searchResultsUnmatched = Fixtures.load("search.xml", entries);
+        lockResult = Fixtures.load("lock.xml", entries);
+        checkRun = Fixtures.load("checkrun.xml", entries);
+        activation = Fixtures.load("activation.xml", entries);
+        unitTestRun = Fixtures.load("aunit.xml", entries);
+        dataPreview = Fixtures.load("datapreview.xml", entries);
+        dataPreviewBytes = dataPreview.getBytes(StandardCharsets.UTF_8);
+        atcWorklist = Fixtures.load("atc.xml", entries);
+        inactiveObjects = Fixtures.load("inactive.xml", entries);
+        classStructure = Fixtures.load("class.xml", entries);
+        docuXml = Fixtures.load("docu.xml", entries);
+        docuHtml = Fixtures.load("docu.html", entries);
+    }
+
+    @Benchmark
+    public JsonArray searchResults() {
+        return AdtXmlParser.parseSearchResults(searchResults);
+    }
+
+    /**
+     * adtcore-qualified hits, which the parser does not extract: the cost of
+     * scanning a response that yields no results.
+     */
+    @Benchmark
+    public JsonArray searchResultsUnmatched() {
+        return AdtXmlParser.parseSearchResults(searchResultsUnmatched);
+    }
+
+    @Benchmark
+    public String lockHandle() {
+        return AdtXmlParser.extractLockHandle(lockResult);
+    }
+
+    @Benchmark
+    public JsonArray syntaxCheckResults() {
+        return AdtXmlParser.parseSyntaxCheckResults(checkRun);
+    }
+
+    @Benchmark
+    public JsonObject activationResult() {
+        return AdtXmlParser.parseActivationResult(activation);
+    }
+
+    @Benchmark
+    public JsonObject unitTestResults() {
+        return AdtXmlParser.parseUnitTestResults(unitTestRun);
+    }
+
+    @Benchmark
+    public JsonObject dataPreview() {
+        return AdtXmlParser.parseDataPreview(dataPreview);
+    }
+
+    /**
+     * The path sap_sql_query takes: from the response bytes straight to JSON text.
+     */
+    @Benchmark
+    public String dataPreviewStreamed() throws IOException {
+        StringWriter result = new StringWriter();
+        AdtXmlParser.writeDataPreview(new ByteArrayInputStream(dataPreviewBytes), new JsonWriter(result));
+        return result.toString();
+    }
+
+    @Benchmark
+    public JsonObject atcWorklist() {
+        return AdtXmlParser.parseAtcWorklist(atcWorklist);
+    }
+
+    @Benchmark
+    public JsonObject inactiveObjects() {
+        return AdtXmlParser.parseInactiveObjects(inactiveObjects);
+    }
+
+    @Benchmark
+    public JsonObject objectStructure() {
+        return AdtXmlParser.parseObjectStructure(classStructure);
+    }
+
+    @Benchmark
+    public String abapDocuXml() {
+        return AdtXmlParser.parseAbapDocu(docuXml);
+    }
+
+    /**
+     * Keyword documentation served as an HTML page, which goes through the
+     * HTML-to-text conversion as a whole.
+     */
+    @Benchmark
+    public String abapDocuHtml() {
+        return AdtXmlParser.parseAbapDocu(docuHtml);
+    }
+}
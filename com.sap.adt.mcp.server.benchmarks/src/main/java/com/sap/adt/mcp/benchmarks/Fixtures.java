@@ -0,0 +1,54 @@
+package com.sap.adt.mcp.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Loads the ADT response fixtures from {@code /fixtures}.
+ *
+ * <p>Each fixture is a response as SAP sends it, with the part that repeats
+ * per entry (a search hit, a finding, a row, ...) between
+ * {@code <!--repeat-->} and {@code <!--/repeat-->}. {@link #load} repeats
+ * that part to get a document of the wanted size; {@code ${i}} inside it is
+ * replaced with the entry number, so names and URIs stay distinct.</p>
+ */
+final class Fixtures {
+
+    private static final String REPEAT_START = "<!--repeat-->";
+    private static final String REPEAT_END = "<!--/repeat-->";
+
+    private Fixtures() {}
+
+    /**
+     * Returns the fixture with its repeated part present {@code entries} times.
+     */
+    static String load(String name, int entries) {
+        String fixture = read(name);
+        int start = fixture.indexOf(REPEAT_START);
+        int end = fixture.indexOf(REPEAT_END);
+        if (start < 0 || end < start) {
+            return fixture;
+        }
+        String block = fixture.substring(start + REPEAT_START.length(), end);
+        StringBuilder sb = new StringBuilder(fixture.length() + block.length() * entries);
+        sb.append(fixture, 0, start);
+        for (int i = 1; i <= entries; i++) {
+            sb.append(block.replace("${i}", Integer.toString(i)));
+        }
+        sb.append(fixture, end + REPEAT_END.length(), fixture.length());
+        return sb.toString();
+    }
+
+    private static String read(String name) {
+        try (InputStream in = Fixtures.class.getResourceAsStream("/fixtures/" + name)) {
+            if (in == null) {
+                throw new IllegalArgumentException("Unknown fixture: " + name);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
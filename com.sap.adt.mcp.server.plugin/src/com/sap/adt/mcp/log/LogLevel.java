@@ -0,0 +1,26 @@
+package com.sap.adt.mcp.log;
+
+/**
+ * Log levels of the MCP server log, from quietest to most verbose.
+ */
+public enum LogLevel {
+    /** Nothing is logged. */
+    OFF,
+    /** Failures only. */
+    ERROR,
+    /** Lifecycle events and one line per JSON-RPC call with its duration. */
+    INFO,
+    /** Additionally request and response bodies, truncated and sampled. */
+    DEBUG;
+
+    public static LogLevel parse(String value, LogLevel defaultValue) {
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return defaultValue;
+        }
+    }
+}
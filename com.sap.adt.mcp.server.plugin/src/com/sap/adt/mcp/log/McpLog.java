@@ -0,0 +1,220 @@
+package com.sap.adt.mcp.log;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous log of the MCP server.
+ *
+ * <p>Callers only put an event into a lock-free ring buffer. A background
+ * daemon thread formats the events and writes them to the console and,
+ * optionally, to a rolling file. Message bodies are kept as objects and
+ * turned into strings by that thread, so large tool results cost nothing on
+ * the request path. When the buffer is full, events are dropped and counted.</p>
+ */
+public final class McpLog {
+
+    public static final LogLevel DEFAULT_LEVEL = LogLevel.INFO;
+    public static final int DEFAULT_MAX_BODY_CHARS = 2000;
+    public static final int DEFAULT_BODY_SAMPLE_RATE = 1;
+
+    private static final int BUFFER_CAPACITY = 8192;
+    private static final long FILE_MAX_BYTES = 10L * 1024 * 1024;
+    private static final int FILE_MAX_BACKUPS = 5;
+    private static final long IDLE_PARK_NANOS = 20_000_000L;
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+
+    private static final class Event {
+        final LocalDateTime time = LocalDateTime.now();
+        final LogLevel level;
+        final String message;
+        final Object body;
+        final Throwable error;
+
+        Event(LogLevel level, String message, Object body, Throwable error) {
+            this.level = level;
+            this.message = message;
+            this.body = body;
+            this.error = error;
+        }
+    }
+
+    private static final LogRingBuffer<Event> BUFFER = new LogRingBuffer<>(BUFFER_CAPACITY);
+    private static final AtomicLong DROPPED = new AtomicLong();
+    private static final AtomicLong BODY_COUNTER = new AtomicLong();
+
+    private static volatile LogLevel level = DEFAULT_LEVEL;
+    private static volatile int maxBodyChars = DEFAULT_MAX_BODY_CHARS;
+    private static volatile int bodySampleRate = DEFAULT_BODY_SAMPLE_RATE;
+    private static volatile Path logFile;
+
+    private static Thread drainThread;
+    private static RollingFileSink fileSink;
+    private static Path openFile;
+
+    private McpLog() {}
+
+    /**
+     * Applies new settings. Safe to call at any time.
+     *
+     * @param newLevel the most verbose level to log
+     * @param newMaxBodyChars bodies longer than this are cut off
+     * @param newBodySampleRate log every n-th body at DEBUG level (1 = all)
+     * @param newLogFile file to write to in addition to the console, or null
+     */
+    public static void configure(LogLevel newLevel, int newMaxBodyChars, int newBodySampleRate, Path newLogFile) {
+        level = newLevel != null ? newLevel : DEFAULT_LEVEL;
+        maxBodyChars = Math.max(0, newMaxBodyChars);
+        bodySampleRate = Math.max(1, newBodySampleRate);
+        logFile = newLogFile;
+    }
+
+    public static boolean isEnabled(LogLevel eventLevel) {
+        return eventLevel != LogLevel.OFF && eventLevel.compareTo(level) <= 0;
+    }
+
+    public static void error(String message, Throwable error) {
+        enqueue(LogLevel.ERROR, message, null, error);
+    }
+
+    public static void info(String message) {
+        enqueue(LogLevel.INFO, message, null, null);
+    }
+
+    /**
+     * Logs a request or response body at DEBUG level, subject to sampling.
+     * The body is converted with {@code toString()} on the log thread, so it
+     * must not be modified afterwards.
+     */
+    public static void body(String label, Object body) {
+        if (!isEnabled(LogLevel.DEBUG)) {
+            return;
+        }
+        if (BODY_COUNTER.getAndIncrement() % bodySampleRate != 0) {
+            return;
+        }
+        enqueue(LogLevel.DEBUG, label, body, null);
+    }
+
+    private static void enqueue(LogLevel eventLevel, String message, Object body, Throwable error) {
+        if (!isEnabled(eventLevel)) {
+            return;
+        }
+        ensureDrainThread();
+        if (!BUFFER.offer(new Event(eventLevel, message, body, error))) {
+            DROPPED.incrementAndGet();
+        }
+    }
+
+    private static synchronized void ensureDrainThread() {
+        if (drainThread != null) {
+            return;
+        }
+        drainThread = new Thread(McpLog::drain, "mcp-log");
+        drainThread.setDaemon(true);
+        drainThread.start();
+    }
+
+    private static void drain() {
+        while (true) {
+            Event event = BUFFER.poll();
+            if (event == null) {
+                reportDropped();
+                flushFile();
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+            write(format(event), event.level == LogLevel.ERROR);
+        }
+    }
+
+    private static String format(Event event) {
+        StringBuilder line = new StringBuilder(128);
+        line.append(TIME_FORMAT.format(event.time)).append(' ')
+            .append(event.level).append(' ')
+            .append(event.message);
+        if (event.body != null) {
+            String body = String.valueOf(event.body);
+            line.append(": ");
+            if (body.length() > maxBodyChars) {
+                line.append(body, 0, maxBodyChars)
+                    .append("... [").append(body.length() - maxBodyChars).append(" more chars]");
+            } else {
+                line.append(body);
+            }
+        }
+        if (event.error != null) {
+            StringWriter trace = new StringWriter();
+            event.error.printStackTrace(new PrintWriter(trace));
+            line.append(System.lineSeparator()).append(trace.toString().trim());
+        }
+        return line.toString();
+    }
+
+    private static void reportDropped() {
+        long dropped = DROPPED.getAndSet(0);
+        if (dropped > 0) {
+            write(TIME_FORMAT.format(LocalDateTime.now()) + " WARN " + dropped
+                    + " log events dropped, log buffer full", true);
+        }
+    }
+
+    private static void write(String line, boolean error) {
+        if (error) {
+            System.err.println(line);
+        } else {
+            System.out.println(line);
+        }
+
+        RollingFileSink sink = currentFileSink();
+        if (sink != null) {
+            try {
+                sink.write(line);
+            } catch (IOException e) {
+                System.err.println("McpLog: cannot write log file " + openFile + ": " + e.getMessage());
+                closeFile();
+            }
+        }
+    }
+
+    private static RollingFileSink currentFileSink() {
+        Path wanted = logFile;
+        if (wanted == null ? openFile == null : wanted.equals(openFile)) {
+            return fileSink;
+        }
+        closeFile();
+        if (wanted != null) {
+            try {
+                fileSink = new RollingFileSink(wanted, FILE_MAX_BYTES, FILE_MAX_BACKUPS);
+            } catch (IOException e) {
+                System.err.println("McpLog: cannot open log file " + wanted + ": " + e.getMessage());
+            }
+            openFile = wanted;
+        }
+        return fileSink;
+    }
+
+    private static void flushFile() {
+        if (fileSink != null) {
+            try {
+                fileSink.flush();
+            } catch (IOException e) {
+                // reported on next write
+            }
+        }
+    }
+
+    private static void closeFile() {
+        if (fileSink != null) {
+            fileSink.close();
+        }
+        fileSink = null;
+        openFile = null;
+    }
+}
@@ -0,0 +1,83 @@
+package com.sap.adt.mcp.log;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends log lines to a file and rolls it over when it grows past a size limit.
+ *
+ * <p>Rolled files are renamed to {@code name.1}, {@code name.2}, ... with the
+ * oldest beyond {@code maxBackups} deleted. Only used from the log drain thread.</p>
+ */
+final class RollingFileSink {
+
+    private final Path file;
+    private final long maxBytes;
+    private final int maxBackups;
+    private BufferedWriter writer;
+    private long written;
+
+    RollingFileSink(Path file, long maxBytes, int maxBackups) throws IOException {
+        this.file = file;
+        this.maxBytes = maxBytes;
+        this.maxBackups = maxBackups;
+        open();
+    }
+
+    void write(String line) throws IOException {
+        if (written >= maxBytes) {
+            roll();
+        }
+        writer.write(line);
+        writer.newLine();
+        written += line.length() + 1;
+    }
+
+    void flush() throws IOException {
+        writer.flush();
+    }
+
+    void close() {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+
+    private void open() throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        written = Files.size(file);
+    }
+
+    private void roll() throws IOException {
+        writer.close();
+        Files.deleteIfExists(backup(maxBackups));
+        for (int i = maxBackups - 1; i >= 1; i--) {
+            Path source = backup(i);
+            if (Files.exists(source)) {
+                Files.move(source, backup(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        if (maxBackups > 0) {
+            Files.move(file, backup(1), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.deleteIfExists(file);
+        }
+        open();
+    }
+
+    private Path backup(int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+}
@@ -1,12 +1,16 @@
 package com.sap.adt.mcp.preferences;
 
 import org.eclipse.jface.preference.BooleanFieldEditor;
+import org.eclipse.jface.preference.ComboFieldEditor;
 import org.eclipse.jface.preference.FieldEditorPreferencePage;
 import org.eclipse.jface.preference.IntegerFieldEditor;
+import org.eclipse.jface.preference.StringFieldEditor;
 import org.eclipse.ui.IWorkbench;
 import org.eclipse.ui.IWorkbenchPreferencePage;
 
 import com.sap.adt.mcp.Activator;
+import com.sap.adt.mcp.log.LogLevel;
+import com.sap.adt.mcp.sap.AdtSessionPool;
 
 /**
  * Preference page for SAP ADT MCP Server for Claude Code settings.
@@ -32,6 +36,111 @@ public class McpPreferencePage extends FieldEditorPreferencePage implements IWor
                 PreferenceInitializer.PREF_AUTO_START,
                 "Auto-start MCP Server when Eclipse starts",
                 getFieldEditorParent()));
+
+        addField(new BooleanFieldEditor(
+                PreferenceInitializer.PREF_VIRTUAL_THREADS,
+                "Use virtual threads for requests (Java 21+)",
+                getFieldEditorParent()));
+
+        IntegerFieldEditor maxToolsEditor = new IntegerFieldEditor(
+                PreferenceInitializer.PREF_MAX_CONCURRENT_TOOLS,
+                "Max concurrent tool calls:",
+                getFieldEditorParent());
+        maxToolsEditor.setValidRange(1, 256);
+        addField(maxToolsEditor);
+
+        IntegerFieldEditor queueTimeoutEditor = new IntegerFieldEditor(
+                PreferenceInitializer.PREF_TOOL_QUEUE_TIMEOUT,
+                "Tool call queue timeout (seconds):",
+                getFieldEditorParent());
+        queueTimeoutEditor.setValidRange(0, 600);
+        addField(queueTimeoutEditor);
+
+        IntegerFieldEditor sessionTimeoutEditor = new IntegerFieldEditor(
+                PreferenceInitializer.PREF_SESSION_IDLE_TIMEOUT,
+                "Session idle timeout (minutes):",
+                getFieldEditorParent());
+        sessionTimeoutEditor.setValidRange(1, 1440);
+        addField(sessionTimeoutEditor);
+
+        IntegerFieldEditor maxSessionsEditor = new IntegerFieldEditor(
+                PreferenceInitializer.PREF_MAX_SESSIONS,
+                "Max MCP sessions:",
+                getFieldEditorParent());
+        maxSessionsEditor.setValidRange(1, 1024);
+        addField(maxSessionsEditor);
+
+        IntegerFieldEditor maxRequestEditor = new IntegerFieldEditor(
+                PreferenceInitializer.PREF_MAX_REQUEST_SIZE,
+                "Max request size (MB):",
+                getFieldEditorParent());
+        maxRequestEditor.setValidRange(1, 1024);
+        addField(maxRequestEditor);
+
+        IntegerFieldEditor toolTimeoutEditor = new IntegerFieldEditor(
+                PreferenceInitializer.PREF_TOOL_TIMEOUT,
+                "Tool call time budget (seconds):",
+                getFieldEditorParent());
+        toolTimeoutEditor.setValidRange(1, 3600);
+        addField(toolTimeoutEditor);
+
+        addField(new StringFieldEditor(
+                PreferenceInitializer.PREF_TOOL_TIMEOUTS,
+                "Per-tool budgets (tool=seconds, ...):",
+                getFieldEditorParent()));
+
+        IntegerFieldEditor sapSessionsEditor = new IntegerFieldEditor(
+                PreferenceInitializer.PREF_SAP_SESSIONS,
+                "Parallel SAP sessions (applied on connect):",
+                getFieldEditorParent());
+        // Stateless requests and locks each need a session of their own
+        sapSessionsEditor.setValidRange(AdtSessionPool.MIN_SIZE, 32);
+        addField(sapSessionsEditor);
+
+        IntegerFieldEditor lockLeaseEditor = new IntegerFieldEditor(
+                PreferenceInitializer.PREF_LOCK_LEASE,
+                "Release unused locks after (minutes):",
+                getFieldEditorParent());
+        lockLeaseEditor.setValidRange(1, 1440);
+        addField(lockLeaseEditor);
+
+        IntegerFieldEditor editWindowEditor = new IntegerFieldEditor(
+                PreferenceInitializer.PREF_EDIT_WINDOW,
+                "Keep lock after a write (seconds, 0 = off):",
+                getFieldEditorParent());
+        editWindowEditor.setValidRange(0, 3600);
+        addField(editWindowEditor);
+
+        LogLevel[] levels = LogLevel.values();
+        String[][] levelEntries = new String[levels.length][2];
+        for (int i = 0; i < levels.length; i++) {
+            levelEntries[i][0] = levels[i].name();
+            levelEntries[i][1] = levels[i].name();
+        }
+        addField(new ComboFieldEditor(
+                PreferenceInitializer.PREF_LOG_LEVEL,
+                "Log level:",
+                levelEntries,
+                getFieldEditorParent()));
+
+        IntegerFieldEditor maxBodyEditor = new IntegerFieldEditor(
+                PreferenceInitializer.PREF_LOG_MAX_BODY,
+                "Max logged body length (chars):",
+                getFieldEditorParent());
+        maxBodyEditor.setValidRange(0, 10_000_000);
+        addField(maxBodyEditor);
+
+        IntegerFieldEditor sampleRateEditor = new IntegerFieldEditor(
+                PreferenceInitializer.PREF_LOG_SAMPLE_RATE,
+                "Log every n-th body (DEBUG level):",
+                getFieldEditorParent());
+        sampleRateEditor.setValidRange(1, 10_000);
+        addField(sampleRateEditor);
+
+        addField(new StringFieldEditor(
+                PreferenceInitializer.PREF_LOG_FILE,
+                "Log file (empty = console only):",
+                getFieldEditorParent()));
     }
 
     @Override
@@ -4,6 +4,10 @@ import org.eclipse.core.runtime.preferences.AbstractPreferenceInitializer;
 import org.eclipse.jface.preference.IPreferenceStore;
 
 import com.sap.adt.mcp.Activator;
+import com.sap.adt.mcp.log.McpLog;
+import com.sap.adt.mcp.sap.AdtLockManager;
+import com.sap.adt.mcp.sap.AdtSessionPool;
+import com.sap.adt.mcp.server.McpServer;
 
 /**
  * Initializes default preference values.
@@ -12,6 +16,25 @@ public class PreferenceInitializer extends AbstractPreferenceInitializer {
 
     public static final String PREF_MCP_PORT = "mcp.server.port";
     public static final String PREF_AUTO_START = "mcp.server.autostart";
+    public static final String PREF_VIRTUAL_THREADS = "mcp.server.virtualThreads";
+    public static final String PREF_MAX_CONCURRENT_TOOLS = "mcp.server.maxConcurrentTools";
+    public static final String PREF_TOOL_QUEUE_TIMEOUT = "mcp.server.toolQueueTimeout";
+    public static final String PREF_SESSION_IDLE_TIMEOUT = "mcp.server.sessionIdleTimeout";
+    public static final String PREF_MAX_SESSIONS = "mcp.server.maxSessions";
+    public static final String PREF_MAX_REQUEST_SIZE = "mcp.server.maxRequestSize";
+    public static final String PREF_TOOL_TIMEOUT = "mcp.server.toolTimeout";
+    public static final String PREF_TOOL_TIMEOUTS = "mcp.server.toolTimeouts";
+
+    // SAP connection
+    public static final String PREF_SAP_SESSIONS = "sap.connection.sessions";
+    public static final String PREF_LOCK_LEASE = "sap.connection.lockLease";
+    public static final String PREF_EDIT_WINDOW = "sap.connection.editWindow";
+
+    // Request logging
+    public static final String PREF_LOG_LEVEL = "mcp.log.level";
+    public static final String PREF_LOG_MAX_BODY = "mcp.log.maxBodyChars";
+    public static final String PREF_LOG_SAMPLE_RATE = "mcp.log.bodySampleRate";
+    public static final String PREF_LOG_FILE = "mcp.log.file";
 
     // Connection history (no password stored)
     public static final String PREF_LAST_URL = "sap.connection.lastUrl";
@@ -25,6 +48,21 @@ public class PreferenceInitializer extends AbstractPreferenceInitializer {
         IPreferenceStore store = Activator.getDefault().getPreferenceStore();
         store.setDefault(PREF_MCP_PORT, 3000);
         store.setDefault(PREF_AUTO_START, false);
+        store.setDefault(PREF_VIRTUAL_THREADS, true);
+        store.setDefault(PREF_MAX_CONCURRENT_TOOLS, McpServer.DEFAULT_MAX_CONCURRENT_TOOL_CALLS);
+        store.setDefault(PREF_TOOL_QUEUE_TIMEOUT, McpServer.DEFAULT_TOOL_CALL_QUEUE_TIMEOUT_SECONDS);
+        store.setDefault(PREF_SESSION_IDLE_TIMEOUT, McpServer.DEFAULT_SESSION_IDLE_TIMEOUT_MINUTES);
+        store.setDefault(PREF_MAX_SESSIONS, McpServer.DEFAULT_MAX_SESSIONS);
+        store.setDefault(PREF_MAX_REQUEST_SIZE, McpServer.DEFAULT_MAX_REQUEST_MEGABYTES);
+        store.setDefault(PREF_TOOL_TIMEOUT, McpServer.DEFAULT_TOOL_TIMEOUT_SECONDS);
+        store.setDefault(PREF_TOOL_TIMEOUTS, McpServer.DEFAULT_TOOL_TIMEOUTS);
+        store.setDefault(PREF_SAP_SESSIONS, AdtSessionPool.DEFAULT_SIZE);
+        store.setDefault(PREF_LOCK_LEASE, AdtLockManager.DEFAULT_LEASE_MINUTES);
+        store.setDefault(PREF_EDIT_WINDOW, AdtLockManager.DEFAULT_EDIT_WINDOW_SECONDS);
+        store.setDefault(PREF_LOG_LEVEL, McpLog.DEFAULT_LEVEL.name());
+        store.setDefault(PREF_LOG_MAX_BODY, McpLog.DEFAULT_MAX_BODY_CHARS);
+        store.setDefault(PREF_LOG_SAMPLE_RATE, McpLog.DEFAULT_BODY_SAMPLE_RATE);
+        store.setDefault(PREF_LOG_FILE, "");
         store.setDefault(PREF_LAST_URL, "");
         store.setDefault(PREF_LAST_USER, "");
         store.setDefault(PREF_LAST_CLIENT, "100");
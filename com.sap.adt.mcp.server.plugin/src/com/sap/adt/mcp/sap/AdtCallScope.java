@@ -0,0 +1,188 @@
+package com.sap.adt.mcp.sap;
+
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Groups the SAP HTTP calls made on behalf of one MCP request so they can be
+ * cancelled together.
+ *
+ * <p>A scope is bound to the current thread with {@link #bind()}. While bound,
+ * {@link AdtRestClient} sends its requests asynchronously and registers the
+ * pending futures here; {@link #cancel(String)} cancels them, which aborts the
+ * HTTP exchange and wakes the waiting thread with a {@link CancellationException}.
+ * Calls started after cancellation fail right away.</p>
+ *
+ * <p>A scope may also carry a deadline. Each request inside the scope then gets
+ * the remaining budget as its timeout (capped by the client's own per-request
+ * timeout), so a multi-step tool cannot run past its budget.</p>
+ */
+public final class AdtCallScope {
+
+    private static final ThreadLocal<AdtCallScope> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Restores the previously bound scope when closed.
+     */
+    public interface Binding extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private final Set<CompletableFuture<?>> inFlight = ConcurrentHashMap.newKeySet();
+    private volatile String cancelReason;
+    private volatile Duration budget;
+    private volatile long deadlineNanos;
+
+    /**
+     * Returns the scope bound to the current thread, or null.
+     */
+    public static AdtCallScope current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Unbinds any scope for the duration of the binding. Used for cleanup calls,
+     * e.g. releasing a lock, that must still go out after a cancellation.
+     */
+    public static Binding detach() {
+        return bind(null);
+    }
+
+    /**
+     * Binds this scope to the current thread until the returned binding is closed.
+     */
+    public Binding bind() {
+        return bind(this);
+    }
+
+    private static Binding bind(AdtCallScope scope) {
+        AdtCallScope previous = CURRENT.get();
+        CURRENT.set(scope);
+        return () -> {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    /**
+     * Cancels all in-flight calls of this scope and every call started later.
+     */
+    public void cancel(String reason) {
+        if (cancelReason != null) {
+            return;
+        }
+        cancelReason = reason != null ? reason : "Request cancelled";
+        for (CompletableFuture<?> future : inFlight) {
+            future.cancel(true);
+        }
+    }
+
+    /**
+     * Starts a time budget for this scope, counted from now.
+     */
+    public void setBudget(Duration budget) {
+        this.deadlineNanos = System.nanoTime() + budget.toNanos();
+        this.budget = budget;
+    }
+
+    /**
+     * Returns the time left before the deadline, or null if the scope has none.
+     * May be zero or negative once the deadline has passed.
+     */
+    public Duration remaining() {
+        if (budget == null) {
+            return null;
+        }
+        return Duration.ofNanos(deadlineNanos - System.nanoTime());
+    }
+
+    public boolean isExpired() {
+        return budget != null && deadlineNanos - System.nanoTime() <= 0;
+    }
+
+    /**
+     * Returns the timeout for the next request: the remaining budget, capped by
+     * {@code max}.
+     *
+     * @throws HttpTimeoutException if the budget is used up
+     */
+    Duration requestTimeout(Duration max) throws HttpTimeoutException {
+        Duration remaining = remaining();
+        if (remaining == null) {
+            return max;
+        }
+        if (remaining.isNegative() || remaining.isZero()) {
+            throw budgetExhausted();
+        }
+        return remaining.compareTo(max) < 0 ? remaining : max;
+    }
+
+    HttpTimeoutException budgetExhausted() {
+        return new HttpTimeoutException("Time budget of " + budget.toSeconds() + "s exhausted");
+    }
+
+    public boolean isCancelled() {
+        return cancelReason != null;
+    }
+
+    /**
+     * @throws CancellationException if the scope was cancelled
+     */
+    public void throwIfCancelled() {
+        String reason = cancelReason;
+        if (reason != null) {
+            throw new CancellationException(reason);
+        }
+    }
+
+    /**
+     * Runs one step of an asynchronous pipeline with this scope bound. Continuation
+     * stages run on HTTP client threads where no scope is bound; SAP calls started
+     * from them go through here to stay cancellable and within the budget.
+     */
+    @SuppressWarnings("try") // the binding only scopes the step
+    public <T> T call(Supplier<T> step) {
+        try (Binding binding = bind()) {
+            return step.get();
+        }
+    }
+
+    /**
+     * Maps the failure of a call made in this scope: an exchange aborted by
+     * {@link #cancel(String)} becomes a {@link CancellationException} with the
+     * cancel reason, a timeout after the deadline becomes a budget error.
+     */
+    Throwable translate(Throwable error) {
+        String reason = cancelReason;
+        if (reason != null) {
+            return new CancellationException(reason);
+        }
+        if (error instanceof HttpTimeoutException && isExpired()) {
+            return budgetExhausted();
+        }
+        return error;
+    }
+
+    /**
+     * Registers a pending call. It is cancelled immediately if the scope already is,
+     * and forgotten once it completes.
+     */
+    <T> CompletableFuture<T> track(CompletableFuture<T> future) {
+        inFlight.add(future);
+        future.whenComplete((result, error) -> inFlight.remove(future));
+        if (isCancelled()) {
+            // cancel() may have run before the add; it must not miss this call
+            future.cancel(true);
+        }
+        return future;
+    }
+}
@@ -0,0 +1,201 @@
+package com.sap.adt.mcp.sap;
+
+/**
+ * Turns an HTML page, e.g. ABAP keyword documentation, into plain text in a
+ * single pass over the markup.
+ *
+ * <p>Tags are dropped. {@code <br>}, {@code </div>}, {@code </li>} and
+ * {@code </tr>} end a line, {@code </p>} also adds an empty line, and
+ * {@code <li>} starts with a bullet. The entities {@code &lt; &gt; &amp;
+ * &nbsp; &quot; &#39;} are decoded in text. Runs of blanks and tabs become
+ * one blank, blanks next to a line break are dropped, at most one empty line
+ * is kept in a row, and the result is trimmed.</p>
+ *
+ * <p>A tag reaches from {@code <} to the next {@code >}, with at least one
+ * character in between; a {@code <} without that is text. The known tags
+ * above are recognized first, so a stray {@code <} in the text swallows
+ * everything up to the next {@code >} that does not close one of them.</p>
+ */
+final class AdtHtmlText {
+
+    private static final String[] ENTITIES = { "&lt;", "&gt;", "&amp;", "&nbsp;", "&quot;", "&#39;" };
+    private static final char[] DECODED = { '<', '>', '&', ' ', '"', '\'' };
+
+    private final StringBuilder out;
+    /** Line breaks not written yet, so a run can be cut to two. */
+    private int newlines;
+    /** A blank not written yet, dropped if a line break comes next. */
+    private boolean blank;
+
+    private AdtHtmlText(int capacity) {
+        this.out = new StringBuilder(capacity);
+    }
+
+    static String toText(String html) {
+        if (html == null) return "";
+
+        AdtHtmlText text = new AdtHtmlText(html.length());
+        int length = html.length();
+        // The next '>' from the current '<' on, kept while it is still ahead; -1 once there is none
+        int tagEnd = 0;
+        // Once an unknown tag found no end, no later one will
+        boolean unknownTagEndAhead = true;
+        int i = 0;
+        while (i < length) {
+            char c = html.charAt(i);
+            if (c == '<' && tagEnd >= 0) {
+                if (tagEnd <= i) {
+                    tagEnd = html.indexOf('>', i + 1);
+                }
+                if (tagEnd > i + 1) {
+                    if (text.knownTag(html, i + 1, tagEnd)) {
+                        i = tagEnd + 1;
+                        continue;
+                    }
+                    int end = unknownTagEndAhead ? unknownTagEnd(html, i, tagEnd) : -1;
+                    if (end >= 0) {
+                        i = end + 1;
+                        continue;
+                    }
+                    unknownTagEndAhead = false;
+                }
+            } else if (c == '&') {
+                int next = text.entity(html, i);
+                if (next > i) {
+                    i = next;
+                    continue;
+                }
+            }
+            text.append(c);
+            i++;
+        }
+        return text.out.toString().trim();
+    }
+
+    /**
+     * Writes what a known tag stands for; {@code start} and {@code end}
+     * enclose what is between the angle brackets.
+     *
+     * @return false, writing nothing, if it is no known tag
+     */
+    private boolean knownTag(String html, int start, int end) {
+        if (isLineBreak(html, start, end)) {
+            append('\n');
+        } else if (isTag(html, start, end, "/p")) {
+            append('\n');
+            append('\n');
+        } else if (isTag(html, start, end, "/div") || isTag(html, start, end, "/li")
+                || isTag(html, start, end, "/tr")) {
+            append('\n');
+        } else if (isTag(html, start, end, "li")) {
+            append('•');
+            append(' ');
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean isKnownTag(String html, int start, int end) {
+        return isLineBreak(html, start, end) || isTag(html, start, end, "/p")
+                || isTag(html, start, end, "/div") || isTag(html, start, end, "/li")
+                || isTag(html, start, end, "/tr") || isTag(html, start, end, "li");
+    }
+
+    /**
+     * Finds the end of the unknown tag at {@code start}: the first {@code >}
+     * from {@code tagEnd} on that does not close a known tag. A known tag
+     * contains no {@code <}, so it starts at the last {@code <} before its
+     * {@code >}.
+     *
+     * @return the index of that {@code >}, or -1 if there is none
+     */
+    private static int unknownTagEnd(String html, int start, int tagEnd) {
+        int end = tagEnd;
+        while (end >= 0) {
+            int open = html.lastIndexOf('<', end - 1);
+            if (open <= start || !isKnownTag(html, open + 1, end)) {
+                return end;
+            }
+            end = html.indexOf('>', end + 1);
+        }
+        return -1;
+    }
+
+    /**
+     * Decodes the entity at {@code start}, if it is one of the known ones.
+     *
+     * @return the index after the entity, or {@code start} if there is none
+     */
+    private int entity(String html, int start) {
+        for (int k = 0; k < ENTITIES.length; k++) {
+            if (html.startsWith(ENTITIES[k], start)) {
+                append(DECODED[k]);
+                return start + ENTITIES[k].length();
+            }
+        }
+        return start;
+    }
+
+    private void append(char c) {
+        if (c == ' ' || c == '\t') {
+            if (newlines == 0) {
+                blank = true;
+            }
+        } else if (c == '\n') {
+            blank = false;
+            newlines++;
+        } else {
+            if (newlines > 0) {
+                out.append('\n');
+                if (newlines > 1) {
+                    out.append('\n');
+                }
+                newlines = 0;
+            } else if (blank) {
+                out.append(' ');
+                blank = false;
+            }
+            out.append(c);
+        }
+    }
+
+    /**
+     * {@code br}, optionally followed by whitespace and a {@code /}.
+     */
+    private static boolean isLineBreak(String html, int start, int end) {
+        if (end - start < 2 || !matchesIgnoreCase(html, start, "br")) {
+            return false;
+        }
+        int i = start + 2;
+        while (i < end && isWhitespace(html.charAt(i))) {
+            i++;
+        }
+        if (i < end && html.charAt(i) == '/') {
+            i++;
+        }
+        return i == end;
+    }
+
+    private static boolean isTag(String html, int start, int end, String name) {
+        return end - start == name.length() && matchesIgnoreCase(html, start, name);
+    }
+
+    /**
+     * Compares with a lower-case ASCII name, ignoring the case of letters.
+     */
+    private static boolean matchesIgnoreCase(String html, int start, String name) {
+        for (int k = 0; k < name.length(); k++) {
+            char c = html.charAt(start + k);
+            char expected = name.charAt(k);
+            if (c != expected && !(expected >= 'a' && expected <= 'z' && c == expected - ('a' - 'A'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+}
@@ -0,0 +1,456 @@
+package com.sap.adt.mcp.sap;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.sap.adt.mcp.log.McpLog;
+
+/**
+ * Keeps SAP locks on the stateful sessions the pool reserves for them and
+ * remembers who holds each one.
+ *
+ * <p>An ADT lock belongs to the SAP session that took it: a write or unlock
+ * from another session fails, and a stateless request on the same session can
+ * drop it. {@link #lock} therefore leases one of the pool's reserved sessions,
+ * which never serve stateless requests, and keeps the lease until
+ * {@link #unlock}. It prefers a session that holds no other lock; with more
+ * locks than reserved sessions, locks share them, each on the session that
+ * took it. Every later step for that lock handle goes through
+ * {@link Lock#client()}.</p>
+ *
+ * <p>Locks are recorded per object and owner (the MCP session id). A second
+ * owner asking for an object that is explicitly locked here, or that another
+ * owner is writing right now, gets a {@link LockedException} right away
+ * instead of waiting on SAP's HTTP 423; the same owner gets its existing lock
+ * back. A lock another owner only keeps for its edit window is released and
+ * taken anew, so writers never wait on each other's edit windows.</p>
+ *
+ * <p>Each lock is held on a lease. Taking the lock again or writing under it
+ * renews the lease; a background sweeper releases locks whose lease ran out,
+ * so a lock the agent forgot does not block colleagues until SAP drops the
+ * session. Callers release an owner's locks when its MCP session closes, with
+ * {@link #releaseOwnerLater}: the unlock requests then run on the sweeper
+ * thread, not on the thread that closes the session.</p>
+ *
+ * <p>A writer that did not hold the lock before takes it with
+ * {@link #lockForEdit} and hands it back with {@link #endEdit}. The lock then
+ * stays for a short edit window, so an agent writing the same object again
+ * right away skips the lock and unlock round trips.</p>
+ */
+public final class AdtLockManager {
+
+    public static final int DEFAULT_LEASE_MINUTES = 15;
+    public static final int DEFAULT_EDIT_WINDOW_SECONDS = 60;
+    private static final long SWEEP_INTERVAL_SECONDS = 10;
+
+    private static final Map<String, String> STATEFUL_HEADERS =
+            Map.of(AdtRestClient.SESSION_TYPE_HEADER, "stateful");
+    private static final String LOCK_ACCEPT =
+            "application/vnd.sap.as+xml;charset=UTF-8;dataname=com.sap.adt.lock.result;q=0.8, "
+            + "application/vnd.sap.as+xml;charset=UTF-8;dataname=com.sap.adt.lock.result2;q=0.9";
+
+    /**
+     * Thrown when another owner holds the object, like SAP's HTTP 423. Worth
+     * retrying shortly if the other owner is only writing.
+     */
+    public static final class LockedException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        LockedException(String objectUrl) {
+            super(objectUrl + " is locked by another MCP session");
+        }
+    }
+
+    /**
+     * A lock held through this manager.
+     */
+    public static final class Lock {
+
+        private final String objectUrl;
+        private final String handle;
+        private final String owner;
+        private final AdtSessionPool.Lease lease;
+        private volatile boolean explicit;
+        private volatile long leaseMillis;
+        private volatile long expiresAt;
+        /** Writes between lockForEdit and endEdit; guarded by the lock. */
+        private int writers;
+        /** Set once the lock is being released; guarded by the lock. */
+        private boolean released;
+
+        private Lock(String objectUrl, String handle, String owner, AdtSessionPool.Lease lease) {
+            this.objectUrl = objectUrl;
+            this.handle = handle;
+            this.owner = owner;
+            this.lease = lease;
+        }
+
+        public String getObjectUrl() {
+            return objectUrl;
+        }
+
+        public String getHandle() {
+            return handle;
+        }
+
+        /**
+         * Returns the MCP session id that took the lock, or null.
+         */
+        public String getOwner() {
+            return owner;
+        }
+
+        /**
+         * Returns true if the lock was requested on its own (sap_lock), false
+         * if a writer only keeps it for its edit window.
+         */
+        public boolean isExplicit() {
+            return explicit;
+        }
+
+        /**
+         * Returns when the lease runs out, in epoch milliseconds.
+         */
+        public long getExpiresAt() {
+            return expiresAt;
+        }
+
+        /**
+         * Returns the session that holds the lock. Writes under the lock handle
+         * must go through it.
+         */
+        public AdtRestClient client() {
+            return lease.client();
+        }
+    }
+
+    private final AdtSessionPool sessions;
+    private final Map<String, Lock> byObject = new ConcurrentHashMap<>();
+    private final Map<String, Lock> byHandle = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService sweeper;
+    private volatile long leaseMillis = TimeUnit.MINUTES.toMillis(DEFAULT_LEASE_MINUTES);
+    private volatile long editWindowMillis = TimeUnit.SECONDS.toMillis(DEFAULT_EDIT_WINDOW_SECONDS);
+
+    public AdtLockManager(AdtSessionPool sessions) {
+        this.sessions = sessions;
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "adt-lock-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::sweep,
+                SWEEP_INTERVAL_SECONDS, SWEEP_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Sets how long a lock is kept without being used. Applies to leases
+     * started or renewed from now on.
+     */
+    public void setLeaseMinutes(int minutes) {
+        this.leaseMillis = TimeUnit.MINUTES.toMillis(Math.max(1, minutes));
+    }
+
+    /**
+     * Sets how long a writer's lock is kept after its last write. Zero releases
+     * it right after each write.
+     */
+    public void setEditWindowSeconds(int seconds) {
+        this.editWindowMillis = TimeUnit.SECONDS.toMillis(Math.max(0, seconds));
+    }
+
+    /**
+     * Extends the lease of a lock that is still in use.
+     */
+    public void renew(Lock lock) {
+        lock.expiresAt = System.currentTimeMillis() + lock.leaseMillis;
+    }
+
+    /**
+     * Locks an object for modification on a dedicated session.
+     *
+     * @param objectUrl the ADT object URL, without query
+     * @param owner the MCP session id of the caller, or null
+     * @throws IOException if another owner holds the object here, or SAP refuses the lock
+     */
+    public Lock lock(String objectUrl, String owner) throws Exception {
+        return acquire(objectUrl, owner, true);
+    }
+
+    /**
+     * Locks an object for one write. Returns the caller's existing lock if it
+     * holds one, e.g. from sap_lock or a write within the edit window. Pass the
+     * result to {@link #endEdit} when the write is done.
+     *
+     * @throws IOException if another owner holds the object here, or SAP refuses the lock
+     */
+    public Lock lockForEdit(String objectUrl, String owner) throws Exception {
+        return acquire(objectUrl, owner, false);
+    }
+
+    /**
+     * Ends a write started with {@link #lockForEdit}. An explicit lock stays as it
+     * is. Otherwise the lock is kept for the edit window after a successful
+     * write, and released after a failed one, since the failure may mean SAP
+     * no longer knows the lock. Never throws.
+     */
+    public void endEdit(Lock lock, boolean written) {
+        synchronized (lock) {
+            lock.writers--;
+        }
+        if (lock.explicit) {
+            renew(lock);
+        } else if (written && editWindowMillis > 0) {
+            lock.leaseMillis = editWindowMillis;
+            renew(lock);
+        } else if (byHandle.get(lock.handle) == lock) {
+            releaseQuietly(lock);
+        }
+    }
+
+    private Lock acquire(String objectUrl, String owner, boolean explicit) throws Exception {
+        String key = normalize(objectUrl);
+        Lock existing;
+        while ((existing = byObject.get(key)) != null) {
+            Lock reused = reuse(existing, owner, explicit);
+            if (reused != null) {
+                return reused;
+            }
+            // Released meanwhile, or taken over from another owner's edit window
+        }
+
+        AdtSessionPool.Lease lease = sessions.lease();
+        Lock lock;
+        try {
+            HttpResponse<String> response = lease.client().postWithHeaders(
+                    objectUrl + "?_action=LOCK&accessMode=MODIFY", "",
+                    "application/*", LOCK_ACCEPT, STATEFUL_HEADERS);
+            String handle = AdtXmlParser.extractLockHandle(response.body());
+            if (handle == null || handle.isEmpty()) {
+                throw new IOException("Failed to acquire lock on " + objectUrl + ". Response: " + response.body());
+            }
+            lock = new Lock(objectUrl, handle, owner, lease);
+            lock.explicit = explicit;
+            lock.writers = explicit ? 0 : 1;
+            lock.leaseMillis = leaseMillis;
+            renew(lock);
+        } catch (Exception e) {
+            lease.close();
+            throw e;
+        }
+
+        Lock raced = byObject.putIfAbsent(key, lock);
+        if (raced != null) {
+            // Another call of the same owner locked it meanwhile; SAP handed us
+            // the lock on a second session, give that one back
+            release(lock);
+            return acquire(objectUrl, owner, explicit);
+        }
+        byHandle.put(lock.handle, lock);
+        return lock;
+    }
+
+    /**
+     * Hands an existing lock to its owner again. A lock of another owner that
+     * is neither explicit nor being written is only kept for its edit window;
+     * it is released, and null returned so the caller locks anew.
+     *
+     * @return the lock, or null if it is gone and must be taken again
+     * @throws LockedException if another owner holds the lock explicitly or is writing
+     */
+    private Lock reuse(Lock lock, String owner, boolean explicit) throws IOException {
+        synchronized (lock) {
+            if (lock.released) {
+                return null;
+            }
+            if (Objects.equals(lock.owner, owner)) {
+                if (explicit) {
+                    lock.explicit = true;
+                } else {
+                    lock.writers++;
+                }
+                // Back to the full lease while in use; endEdit shortens it again
+                lock.leaseMillis = Math.max(lock.leaseMillis, leaseMillis);
+                renew(lock);
+                return lock;
+            }
+            if (lock.explicit || lock.writers > 0) {
+                throw new LockedException(lock.objectUrl);
+            }
+            lock.released = true;
+        }
+        McpLog.info("Releasing the idle edit lock of another MCP session on " + lock.objectUrl);
+        releaseQuietly(lock);
+        return null;
+    }
+
+    /**
+     * Returns the lock for a handle, or null if this manager does not know it.
+     */
+    public Lock find(String handle) {
+        return handle != null ? byHandle.get(handle) : null;
+    }
+
+    /**
+     * Returns the lock held on an object, or null.
+     */
+    public Lock findByObject(String objectUrl) {
+        return objectUrl != null ? byObject.get(normalize(objectUrl)) : null;
+    }
+
+    /**
+     * Releases a lock taken through this manager.
+     *
+     * @return the HTTP status of the unlock request
+     * @throws IOException if the handle is unknown here, or the lock belongs to
+     *         another owner
+     */
+    public int unlock(String objectUrl, String handle, String owner) throws Exception {
+        Lock lock = byHandle.get(handle);
+        if (lock == null) {
+            // Only the session that took a lock can release it, and that is
+            // not one of ours, e.g. after a reconnect: SAP drops it with that session
+            throw new IOException("Unknown lock handle for " + objectUrl
+                    + ": it was already released, expired, or not taken through this connection");
+        }
+        checkOwner(lock, owner);
+        return release(lock);
+    }
+
+    /**
+     * Releases every lock held by an owner. Failures are logged, not thrown.
+     */
+    public void releaseOwner(String owner) {
+        for (Lock lock : new ArrayList<>(byHandle.values())) {
+            if (Objects.equals(lock.owner, owner)) {
+                releaseQuietly(lock);
+            }
+        }
+    }
+
+    /**
+     * Releases every lock held by an owner on the sweeper thread, for callers
+     * that must not wait for SAP, e.g. a session close listener.
+     */
+    public void releaseOwnerLater(String owner) {
+        runOnSweeper(() -> releaseOwner(owner));
+    }
+
+    /**
+     * Releases every lock, e.g. before the sessions are logged out.
+     */
+    public void releaseAll() {
+        for (Lock lock : new ArrayList<>(byHandle.values())) {
+            releaseQuietly(lock);
+        }
+    }
+
+    /**
+     * Releases every lock on the sweeper thread, see {@link #releaseOwnerLater}.
+     */
+    public void releaseAllLater() {
+        runOnSweeper(this::releaseAll);
+    }
+
+    /**
+     * Releases every lock on the sweeper thread and stops it. Releases queued
+     * before still run first. Log the sessions out only once the returned
+     * future completes, as the unlock requests need them.
+     */
+    public CompletableFuture<Void> close() {
+        CompletableFuture<Void> closed = new CompletableFuture<>();
+        try {
+            sweeper.execute(() -> {
+                try {
+                    releaseAll();
+                } finally {
+                    closed.complete(null);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Closed before
+            closed.complete(null);
+        }
+        sweeper.shutdown();
+        return closed;
+    }
+
+    /**
+     * Returns a snapshot of the locks currently held.
+     */
+    public List<Lock> getLocks() {
+        return new ArrayList<>(byHandle.values());
+    }
+
+    private void sweep() {
+        long now = System.currentTimeMillis();
+        for (Lock lock : new ArrayList<>(byHandle.values())) {
+            if (now >= lock.expiresAt) {
+                McpLog.info("Lock lease on " + lock.objectUrl + " expired, releasing");
+                releaseQuietly(lock);
+            }
+        }
+    }
+
+    private void runOnSweeper(Runnable task) {
+        try {
+            sweeper.execute(task);
+        } catch (RejectedExecutionException e) {
+            // Closed, which released every lock
+        }
+    }
+
+    @SuppressWarnings("try") // the detached binding only scopes the unlock
+    private int release(Lock lock) throws Exception {
+        synchronized (lock) {
+            lock.released = true;
+        }
+        byHandle.remove(lock.handle, lock);
+        byObject.remove(normalize(lock.objectUrl), lock);
+        // The unlock must go out even when the releasing call was cancelled
+        try (AdtCallScope.Binding detached = AdtCallScope.detach()) {
+            HttpResponse<String> response = lock.client().postWithHeaders(
+                    unlockPath(lock.objectUrl, lock.handle), "", "application/*", "application/*",
+                    STATEFUL_HEADERS);
+            return response.statusCode();
+        } finally {
+            lock.lease.close();
+        }
+    }
+
+    private void releaseQuietly(Lock lock) {
+        try {
+            release(lock);
+        } catch (Exception e) {
+            McpLog.error("Failed to release lock on " + lock.objectUrl, e);
+        }
+    }
+
+    private static Lock checkOwner(Lock lock, String owner) throws IOException {
+        if (!Objects.equals(lock.owner, owner)) {
+            throw new LockedException(lock.objectUrl);
+        }
+        return lock;
+    }
+
+    private static String unlockPath(String objectUrl, String handle) {
+        return objectUrl + "?_action=UNLOCK&lockHandle="
+                + URLEncoder.encode(handle, StandardCharsets.UTF_8);
+    }
+
+    private static String normalize(String objectUrl) {
+        return objectUrl.toLowerCase();
+    }
+}
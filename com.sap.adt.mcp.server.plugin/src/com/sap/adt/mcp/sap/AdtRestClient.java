@@ -1,20 +1,33 @@
 package com.sap.adt.mcp.sap;
 
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.CookieManager;
 import java.net.CookiePolicy;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
 import java.nio.charset.StandardCharsets;
 import java.security.KeyManagementException;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.security.cert.X509Certificate;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.TrustManager;
@@ -30,6 +43,18 @@ public class AdtRestClient {
     private static final String DISCOVERY_PATH = "/sap/bc/adt/core/discovery";
     private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(60);
 
+    private static final HttpResponse.BodyHandler<String> STRING_BODY = HttpResponse.BodyHandlers.ofString();
+
+    /**
+     * Streams successful bodies. Error bodies are still read completely, so the
+     * failure can quote them and a discarded 403 does not hold the connection.
+     */
+    private static final HttpResponse.BodyHandler<InputStream> STREAMED_BODY = info ->
+            info.statusCode() >= 200 && info.statusCode() < 300
+                    ? HttpResponse.BodySubscribers.ofInputStream()
+                    : HttpResponse.BodySubscribers.mapping(
+                            HttpResponse.BodySubscribers.ofByteArray(), ByteArrayInputStream::new);
+
     private final String baseUrl;
     private final String username;
     private final String password;
@@ -38,8 +63,25 @@ public class AdtRestClient {
     private final HttpClient httpClient;
     private final CookieManager cookieManager;
 
-    private String csrfToken;
-    private boolean loggedIn;
+    /**
+     * A CSRF token value and the epoch it was published in. Every fetch publishes
+     * a new epoch, so a request can tell whether the token it was sent with has
+     * been replaced since.
+     */
+    private static final class CsrfToken {
+        final String value;
+        final long epoch;
+
+        CsrfToken(String value, long epoch) {
+            this.value = value;
+            this.epoch = epoch;
+        }
+    }
+
+    private final AtomicReference<CsrfToken> csrfToken = new AtomicReference<>(new CsrfToken(null, 0));
+    private final AtomicReference<CompletableFuture<CsrfToken>> csrfRefresh = new AtomicReference<>();
+    private final AtomicInteger pendingRequests = new AtomicInteger();
+    private volatile boolean loggedIn;
 
     public AdtRestClient(String baseUrl, String username, String password,
                          String sapClient, String language, boolean allowInsecureSsl) {
@@ -70,7 +112,7 @@ public class AdtRestClient {
         this.httpClient = builder.build();
     }
 
-    public void login() throws Exception {
+    public synchronized void login() throws Exception {
         if (loggedIn) {
             return;
         }
@@ -84,13 +126,13 @@ public class AdtRestClient {
                 .header(CSRF_TOKEN_HEADER, "Fetch")
                 .header("Accept", "application/atomsvc+xml")
                 .header("Accept-Language", language)
-                .timeout(REQUEST_TIMEOUT)
+                .timeout(requestTimeout())
                 .GET()
                 .build();
 
         HttpResponse<String> response;
         try {
-            response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            response = send(request);
         } catch (java.net.ConnectException e) {
             throw new java.net.ConnectException(
                     "Cannot connect to SAP system at " + baseUrl
@@ -103,148 +145,290 @@ public class AdtRestClient {
                     + ": " + response.body());
         }
 
-        csrfToken = response.headers()
+        String token = response.headers()
                 .firstValue(CSRF_TOKEN_HEADER)
                 .orElse(null);
 
-        if (csrfToken == null || csrfToken.isEmpty()) {
+        if (token == null || token.isEmpty()) {
             throw new IOException("Login succeeded but no CSRF token was returned");
         }
 
+        publishCsrfToken(token);
         loggedIn = true;
     }
 
     public HttpResponse<String> get(String path, String accept) throws Exception {
-        String url = buildUrl(path);
+        return await(getAsync(path, accept));
+    }
 
-        HttpRequest.Builder builder = HttpRequest.newBuilder()
-                .uri(URI.create(url))
-                .header("Authorization", basicAuthHeader())
-                .header("Accept", accept)
-                .header("Accept-Language", language)
-                .timeout(REQUEST_TIMEOUT)
-                .GET();
+    public HttpResponse<String> post(String path, String body,
+                                     String contentType, String accept) throws Exception {
+        return await(postAsync(path, body, contentType, accept));
+    }
 
-        if (csrfToken != null) {
-            builder.header(CSRF_TOKEN_HEADER, csrfToken);
-        }
+    public HttpResponse<String> postWithHeaders(String path, String body,
+                                                String contentType, String accept,
+                                                Map<String, String> extraHeaders) throws Exception {
+        return await(postWithHeadersAsync(path, body, contentType, accept, extraHeaders));
+    }
 
-        return executeWithCsrfRetry(builder);
+    public HttpResponse<String> put(String path, String body,
+                                    String contentType) throws Exception {
+        return await(putAsync(path, body, contentType));
     }
 
-    public HttpResponse<String> post(String path, String body,
-                                     String contentType, String accept) throws Exception {
-        String url = buildUrl(path);
+    public HttpResponse<String> putWithHeaders(String path, String body,
+                                               String contentType,
+                                               Map<String, String> extraHeaders) throws Exception {
+        return await(putWithHeadersAsync(path, body, contentType, extraHeaders));
+    }
 
-        HttpRequest.Builder builder = HttpRequest.newBuilder()
-                .uri(URI.create(url))
-                .header("Authorization", basicAuthHeader())
-                .header("Content-Type", contentType)
-                .header("Accept", accept)
-                .header("Accept-Language", language)
-                .timeout(REQUEST_TIMEOUT)
-                .POST(HttpRequest.BodyPublishers.ofString(body));
+    public HttpResponse<String> delete(String path) throws Exception {
+        return await(deleteAsync(path));
+    }
 
-        if (csrfToken != null) {
-            builder.header(CSRF_TOKEN_HEADER, csrfToken);
-        }
+    /**
+     * Like {@link #get}, but hands the body over as a stream instead of reading
+     * it into a String first. The caller must close the stream. Reading it is
+     * bounded like the request itself: the stream is closed when the current
+     * {@link AdtCallScope} is cancelled or the request timeout runs out.
+     */
+    public InputStream getStream(String path, String accept) throws Exception {
+        return await(getStreamAsync(path, accept));
+    }
 
-        return executeWithCsrfRetry(builder);
+    /**
+     * Like {@link #post}, but streams the response body; see {@link #getStream}.
+     */
+    public InputStream postStream(String path, String body,
+                                  String contentType, String accept) throws Exception {
+        return await(postStreamAsync(path, body, contentType, accept));
     }
 
-    public HttpResponse<String> postWithHeaders(String path, String body,
-                                                String contentType, String accept,
-                                                Map<String, String> extraHeaders) throws Exception {
-        String url = buildUrl(path);
+    // Asynchronous API. Each method runs in the AdtCallScope bound when it is called
+    // and never blocks: the CSRF refresh and retry are chained on the response. The
+    // returned futures fail with the same exceptions the blocking methods throw, and
+    // cancelling one aborts its HTTP exchange.
 
-        HttpRequest.Builder builder = HttpRequest.newBuilder()
-                .uri(URI.create(url))
-                .header("Authorization", basicAuthHeader())
-                .header("Content-Type", contentType)
+    public CompletableFuture<HttpResponse<String>> getAsync(String path, String accept) {
+        return execute(scope -> newRequest(path, scope)
                 .header("Accept", accept)
-                .header("Accept-Language", language)
-                .timeout(REQUEST_TIMEOUT)
-                .POST(HttpRequest.BodyPublishers.ofString(body));
+                .GET(), STRING_BODY);
+    }
 
-        if (csrfToken != null) {
-            builder.header(CSRF_TOKEN_HEADER, csrfToken);
-        }
+    public CompletableFuture<HttpResponse<String>> postAsync(String path, String body,
+                                                             String contentType, String accept) {
+        return postWithHeadersAsync(path, body, contentType, accept, null);
+    }
 
-        if (extraHeaders != null) {
-            for (Map.Entry<String, String> entry : extraHeaders.entrySet()) {
-                builder.header(entry.getKey(), entry.getValue());
-            }
-        }
+    public CompletableFuture<HttpResponse<String>> postWithHeadersAsync(String path, String body,
+                                                                        String contentType, String accept,
+                                                                        Map<String, String> extraHeaders) {
+        return execute(scope -> {
+            HttpRequest.Builder builder = newRequest(path, scope)
+                    .header("Content-Type", contentType)
+                    .header("Accept", accept)
+                    .POST(HttpRequest.BodyPublishers.ofString(body));
+            addHeaders(builder, extraHeaders);
+            return builder;
+        }, STRING_BODY);
+    }
 
-        return executeWithCsrfRetry(builder);
+    public CompletableFuture<HttpResponse<String>> putAsync(String path, String body, String contentType) {
+        return putWithHeadersAsync(path, body, contentType, null);
     }
 
-    public HttpResponse<String> put(String path, String body,
-                                    String contentType) throws Exception {
-        String url = buildUrl(path);
+    public CompletableFuture<HttpResponse<String>> putWithHeadersAsync(String path, String body,
+                                                                       String contentType,
+                                                                       Map<String, String> extraHeaders) {
+        return execute(scope -> {
+            HttpRequest.Builder builder = newRequest(path, scope)
+                    .header("Content-Type", contentType)
+                    .header("Accept", "text/plain, application/*")
+                    .PUT(HttpRequest.BodyPublishers.ofString(body));
+            addHeaders(builder, extraHeaders);
+            return builder;
+        }, STRING_BODY);
+    }
 
-        HttpRequest.Builder builder = HttpRequest.newBuilder()
-                .uri(URI.create(url))
-                .header("Authorization", basicAuthHeader())
+    public CompletableFuture<HttpResponse<String>> deleteAsync(String path) {
+        return execute(scope -> newRequest(path, scope).DELETE(), STRING_BODY);
+    }
+
+    public CompletableFuture<InputStream> getStreamAsync(String path, String accept) {
+        return executeStream(scope -> newRequest(path, scope)
+                .header("Accept", accept)
+                .GET());
+    }
+
+    public CompletableFuture<InputStream> postStreamAsync(String path, String body,
+                                                          String contentType, String accept) {
+        return executeStream(scope -> newRequest(path, scope)
                 .header("Content-Type", contentType)
-                .header("Accept", "text/plain, application/*")
-                .header("Accept-Language", language)
-                .timeout(REQUEST_TIMEOUT)
-                .PUT(HttpRequest.BodyPublishers.ofString(body));
+                .header("Accept", accept)
+                .POST(HttpRequest.BodyPublishers.ofString(body)));
+    }
 
-        if (csrfToken != null) {
-            builder.header(CSRF_TOKEN_HEADER, csrfToken);
+    /**
+     * Combines parallel calls for fan-out. The result lists the responses in the
+     * order of {@code calls}. The first failure fails the result and cancels the
+     * calls still running.
+     */
+    public static <T> CompletableFuture<List<T>> all(List<CompletableFuture<T>> calls) {
+        CompletableFuture<List<T>> result = CompletableFuture
+                .allOf(calls.toArray(new CompletableFuture<?>[0]))
+                .thenApply(done -> {
+                    List<T> responses = new ArrayList<>(calls.size());
+                    for (CompletableFuture<T> call : calls) {
+                        responses.add(call.join());
+                    }
+                    return responses;
+                });
+        for (CompletableFuture<T> call : calls) {
+            call.whenComplete((response, error) -> {
+                if (error != null && result.completeExceptionally(unwrap(error))) {
+                    calls.forEach(other -> other.cancel(true));
+                }
+            });
         }
+        return result;
+    }
 
-        return executeWithCsrfRetry(builder);
+    private interface RequestFactory {
+        HttpRequest.Builder create(AdtCallScope scope) throws HttpTimeoutException;
     }
 
-    public HttpResponse<String> putWithHeaders(String path, String body,
-                                               String contentType,
-                                               Map<String, String> extraHeaders) throws Exception {
-        String url = buildUrl(path);
+    private <T> CompletableFuture<HttpResponse<T>> execute(RequestFactory factory,
+                                                          HttpResponse.BodyHandler<T> bodyHandler) {
+        AdtCallScope scope = AdtCallScope.current();
+        CsrfToken token = csrfToken.get();
+        try {
+            HttpRequest.Builder builder = factory.create(scope);
+            if (token.value != null) {
+                builder.header(CSRF_TOKEN_HEADER, token.value);
+            }
+            pendingRequests.incrementAndGet();
+            CompletableFuture<HttpResponse<T>> result =
+                    executeWithCsrfRetryAsync(builder, token, scope, bodyHandler);
+            result.whenComplete((response, error) -> pendingRequests.decrementAndGet());
+            return result;
+        } catch (HttpTimeoutException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
 
-        HttpRequest.Builder builder = HttpRequest.newBuilder()
-                .uri(URI.create(url))
-                .header("Authorization", basicAuthHeader())
-                .header("Content-Type", contentType)
-                .header("Accept", "text/plain, application/*")
-                .header("Accept-Language", language)
-                .timeout(REQUEST_TIMEOUT)
-                .PUT(HttpRequest.BodyPublishers.ofString(body));
+    /**
+     * Sends a request whose body is handed over as a stream. The request counts
+     * as pending until the stream is closed.
+     */
+    private CompletableFuture<InputStream> executeStream(RequestFactory factory) {
+        AdtCallScope scope = AdtCallScope.current();
+        return execute(factory, STREAMED_BODY).thenApply(response -> {
+            InputStream body = response.body();
+            try {
+                return new GuardedBody(body, scope, requestTimeout(scope));
+            } catch (HttpTimeoutException e) {
+                closeQuietly(body);
+                throw new CompletionException(e);
+            }
+        });
+    }
 
-        if (csrfToken != null) {
-            builder.header(CSRF_TOKEN_HEADER, csrfToken);
+    /**
+     * A streamed response body that is closed from outside when its call scope is
+     * cancelled or its timeout runs out, which also wakes a reader blocked on a
+     * stalled connection. Reads after that fail like the request itself would.
+     */
+    private final class GuardedBody extends FilterInputStream {
+
+        private final AdtCallScope scope;
+        private final CompletableFuture<Void> reading = new CompletableFuture<>();
+
+        GuardedBody(InputStream body, AdtCallScope scope, Duration timeout) {
+            super(body);
+            this.scope = scope;
+            pendingRequests.incrementAndGet();
+            reading.whenComplete((done, error) -> {
+                pendingRequests.decrementAndGet();
+                if (error != null) {
+                    closeQuietly(body);
+                }
+            });
+            if (scope != null) {
+                scope.track(reading);
+            }
+            reading.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
         }
 
-        if (extraHeaders != null) {
-            for (Map.Entry<String, String> entry : extraHeaders.entrySet()) {
-                builder.header(entry.getKey(), entry.getValue());
+        @Override
+        public int read() throws IOException {
+            try {
+                return super.read();
+            } catch (IOException e) {
+                throw failure(e);
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            try {
+                return super.read(b, off, len);
+            } catch (IOException e) {
+                throw failure(e);
             }
         }
 
-        return executeWithCsrfRetry(builder);
+        @Override
+        public void close() throws IOException {
+            reading.complete(null);
+            super.close();
+        }
+
+        private IOException failure(IOException e) {
+            if (!reading.isCompletedExceptionally()) {
+                return e;
+            }
+            if (reading.isCancelled() && scope != null) {
+                Throwable translated = scope.translate(e);
+                if (translated instanceof RuntimeException) {
+                    throw (RuntimeException) translated;
+                }
+            }
+            return new HttpTimeoutException("Reading the response timed out");
+        }
     }
 
-    public HttpResponse<String> delete(String path) throws Exception {
+    private static void closeQuietly(InputStream in) {
+        try {
+            in.close();
+        } catch (IOException e) {
+            // Nothing left to clean up
+        }
+    }
+
+    /**
+     * Starts a request builder with the headers every ADT call carries.
+     */
+    private HttpRequest.Builder newRequest(String path, AdtCallScope scope) throws HttpTimeoutException {
         String url = buildUrl(path);
 
-        HttpRequest.Builder builder = HttpRequest.newBuilder()
+        return HttpRequest.newBuilder()
                 .uri(URI.create(url))
                 .header("Authorization", basicAuthHeader())
                 .header("Accept-Language", language)
-                .timeout(REQUEST_TIMEOUT)
-                .DELETE();
+                .timeout(requestTimeout(scope));
+    }
 
-        if (csrfToken != null) {
-            builder.header(CSRF_TOKEN_HEADER, csrfToken);
+    private static void addHeaders(HttpRequest.Builder builder, Map<String, String> extraHeaders) {
+        if (extraHeaders != null) {
+            for (Map.Entry<String, String> entry : extraHeaders.entrySet()) {
+                builder.header(entry.getKey(), entry.getValue());
+            }
         }
-
-        return executeWithCsrfRetry(builder);
     }
 
-    public void logout() {
-        csrfToken = null;
+    public synchronized void logout() {
+        publishCsrfToken(null);
         loggedIn = false;
         cookieManager.getCookieStore().removeAll();
     }
@@ -253,6 +437,14 @@ public class AdtRestClient {
         return loggedIn;
     }
 
+    /**
+     * Returns the number of requests sent through this client that have not
+     * completed yet.
+     */
+    public int getPendingRequests() {
+        return pendingRequests.get();
+    }
+
     public String getUsername() {
         return username;
     }
@@ -272,31 +464,173 @@ public class AdtRestClient {
         return "Basic " + encoded;
     }
 
-    private HttpResponse<String> executeWithCsrfRetry(HttpRequest.Builder requestBuilder)
-            throws Exception {
+    /**
+     * Sends a request; a 403 triggers a CSRF token refresh and one retry, chained
+     * on the response instead of waiting for it. Non-2xx responses fail with an
+     * IOException.
+     */
+    private <T> CompletableFuture<HttpResponse<T>> executeWithCsrfRetryAsync(
+            HttpRequest.Builder requestBuilder, CsrfToken sentWith, AdtCallScope scope,
+            HttpResponse.BodyHandler<T> bodyHandler) {
         HttpRequest request = requestBuilder.build();
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-
-        if (response.statusCode() == 403) {
-            refreshCsrfToken();
-            requestBuilder.header(CSRF_TOKEN_HEADER, csrfToken);
-            HttpRequest retryRequest = requestBuilder.build();
-            response = httpClient.send(retryRequest, HttpResponse.BodyHandlers.ofString());
-        }
+        AtomicReference<CompletableFuture<HttpResponse<T>>> inFlight =
+                new AtomicReference<>(sendAsync(request, scope, bodyHandler));
+        CompletableFuture<HttpResponse<T>> result = inFlight.get()
+                .thenCompose(response -> {
+                    if (response.statusCode() != 403) {
+                        return CompletableFuture.completedFuture(response);
+                    }
+                    return awaitCsrfRefresh(sentWith, scope).thenCompose(refreshed -> {
+                        if (refreshed.value != null) {
+                            requestBuilder.setHeader(CSRF_TOKEN_HEADER, refreshed.value);
+                        }
+                        try {
+                            requestBuilder.timeout(requestTimeout(scope));
+                        } catch (HttpTimeoutException e) {
+                            return CompletableFuture.failedFuture(e);
+                        }
+                        inFlight.set(sendAsync(requestBuilder.build(), scope, bodyHandler));
+                        return inFlight.get();
+                    });
+                })
+                .thenApply(response -> {
+                    try {
+                        checkStatus(request, response);
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                    return response;
+                });
+        result.whenComplete((response, error) -> {
+            if (result.isCancelled()) {
+                inFlight.get().cancel(true);
+            }
+        });
+        return result;
+    }
 
+    private void checkStatus(HttpRequest request, HttpResponse<?> response) throws IOException {
         if (response.statusCode() < 200 || response.statusCode() >= 300) {
             throw new IOException("HTTP " + response.statusCode()
                     + " " + request.method() + " " + request.uri()
-                    + " -- " + response.body());
+                    + " -- " + bodyText(response));
+        }
+    }
+
+    private static String bodyText(HttpResponse<?> response) {
+        Object body = response.body();
+        if (body instanceof InputStream) {
+            // Error bodies of streamed calls are buffered, see STREAMED_BODY
+            try (InputStream in = (InputStream) body) {
+                return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                return "";
+            }
+        }
+        return String.valueOf(body);
+    }
+
+    /**
+     * Returns a token newer than {@code stale}. If another request already replaced
+     * it, that token is used as is. Otherwise one discovery fetch is started and all
+     * requests that hit a 403 meanwhile wait for that same fetch, so an expired token
+     * costs one extra round trip however many calls are running.
+     */
+    private CompletableFuture<CsrfToken> refreshCsrfToken(CsrfToken stale) {
+        while (true) {
+            CsrfToken current = csrfToken.get();
+            if (current.epoch > stale.epoch) {
+                return CompletableFuture.completedFuture(current);
+            }
+
+            CompletableFuture<CsrfToken> pending = csrfRefresh.get();
+            if (pending != null) {
+                // copy() so a cancelled waiter cannot cancel the shared fetch
+                return pending.copy();
+            }
+
+            CompletableFuture<CsrfToken> refresh = new CompletableFuture<>();
+            if (!csrfRefresh.compareAndSet(null, refresh)) {
+                continue;
+            }
+            current = csrfToken.get();
+            if (current.epoch > stale.epoch) {
+                // A fetch finished between the epoch check and taking the slot
+                refresh.complete(current);
+                csrfRefresh.compareAndSet(refresh, null);
+                return CompletableFuture.completedFuture(current);
+            }
+
+            // Shared by every waiter, so it runs outside any caller's scope
+            sendAsync(csrfFetchRequest(), null, STRING_BODY).whenComplete((response, error) -> {
+                try {
+                    if (error != null) {
+                        refresh.completeExceptionally(unwrap(error));
+                        return;
+                    }
+                    String value = response.headers().firstValue(CSRF_TOKEN_HEADER).orElse(null);
+                    // No token in the answer: keep the old one, the retry will report the 403
+                    refresh.complete(value != null && !value.isEmpty()
+                            ? publishCsrfToken(value)
+                            : csrfToken.get());
+                } finally {
+                    csrfRefresh.compareAndSet(refresh, null);
+                }
+            });
+            return refresh.copy();
+        }
+    }
+
+    /**
+     * Waits for a token newer than {@code stale} within the caller's scope: the
+     * wait is registered with the scope, so cancelling the call ends it, and it
+     * gives up once the call's request timeout or budget runs out. The shared
+     * fetch itself keeps running for the other waiters.
+     */
+    private CompletableFuture<CsrfToken> awaitCsrfRefresh(CsrfToken stale, AdtCallScope scope) {
+        // Always a completed future or this caller's own copy of the shared fetch
+        CompletableFuture<CsrfToken> refresh = refreshCsrfToken(stale);
+        if (scope == null || refresh.isDone()) {
+            return refresh;
+        }
+        Duration timeout;
+        try {
+            timeout = requestTimeout(scope);
+        } catch (HttpTimeoutException e) {
+            return CompletableFuture.failedFuture(e);
         }
 
-        return response;
+        CompletableFuture<CsrfToken> waiting =
+                scope.track(refresh.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS));
+        CompletableFuture<CsrfToken> result = new CompletableFuture<>();
+        waiting.whenComplete((token, error) -> {
+            if (error == null) {
+                result.complete(token);
+                return;
+            }
+            Throwable cause = unwrap(error);
+            if (cause instanceof TimeoutException) {
+                cause = new HttpTimeoutException("CSRF token refresh timed out");
+            }
+            result.completeExceptionally(scope.translate(cause));
+        });
+        return result;
     }
 
-    private void refreshCsrfToken() throws Exception {
+    private CsrfToken publishCsrfToken(String value) {
+        while (true) {
+            CsrfToken current = csrfToken.get();
+            CsrfToken next = new CsrfToken(value, current.epoch + 1);
+            if (csrfToken.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    private HttpRequest csrfFetchRequest() {
         String url = buildUrl(DISCOVERY_PATH);
 
-        HttpRequest request = HttpRequest.newBuilder()
+        return HttpRequest.newBuilder()
                 .uri(URI.create(url))
                 .header("Authorization", basicAuthHeader())
                 .header(CSRF_TOKEN_HEADER, "Fetch")
@@ -305,18 +639,109 @@ public class AdtRestClient {
                 .timeout(REQUEST_TIMEOUT)
                 .GET()
                 .build();
+    }
 
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    /**
+     * Per-request timeout: {@link #REQUEST_TIMEOUT}, or less when the current
+     * {@link AdtCallScope} has a smaller budget left.
+     */
+    private Duration requestTimeout() throws HttpTimeoutException {
+        return requestTimeout(AdtCallScope.current());
+    }
 
-        String newToken = response.headers()
-                .firstValue(CSRF_TOKEN_HEADER)
-                .orElse(null);
+    private Duration requestTimeout(AdtCallScope scope) throws HttpTimeoutException {
+        return scope != null ? scope.requestTimeout(REQUEST_TIMEOUT) : REQUEST_TIMEOUT;
+    }
+
+    /**
+     * Sends a request. Inside an {@link AdtCallScope} the request goes out through
+     * {@code sendAsync} and is registered with the scope, so cancelling the scope
+     * aborts the exchange and releases the waiting thread at once.
+     */
+    private HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        AdtCallScope scope = AdtCallScope.current();
+        if (scope == null) {
+            return httpClient.send(request, STRING_BODY);
+        }
+
+        CompletableFuture<HttpResponse<String>> future = sendAsync(request, scope, STRING_BODY);
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        }
+    }
+
+    /**
+     * Sends a request without blocking. Inside a scope the exchange is tracked for
+     * cancellation and its failures are translated by the scope. Cancelling the
+     * returned future aborts the exchange as well.
+     */
+    private <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, AdtCallScope scope,
+                                                            HttpResponse.BodyHandler<T> bodyHandler) {
+        if (scope == null) {
+            return httpClient.sendAsync(request, bodyHandler);
+        }
+        if (scope.isCancelled()) {
+            return CompletableFuture.failedFuture(scope.translate(null));
+        }
+
+        CompletableFuture<HttpResponse<T>> exchange =
+                scope.track(httpClient.sendAsync(request, bodyHandler));
+        CompletableFuture<HttpResponse<T>> result = new CompletableFuture<>();
+        exchange.whenComplete((response, error) -> {
+            if (error == null) {
+                result.complete(response);
+            } else {
+                result.completeExceptionally(scope.translate(unwrap(error)));
+            }
+        });
+        result.whenComplete((response, error) -> {
+            if (result.isCancelled()) {
+                exchange.cancel(true);
+            }
+        });
+        return result;
+    }
 
-        if (newToken != null && !newToken.isEmpty()) {
-            csrfToken = newToken;
+    /**
+     * Waits for an asynchronous call and rethrows its failure unwrapped, so the
+     * blocking methods throw exactly what the asynchronous ones fail with.
+     */
+    private static <T> T await(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw e;
         }
     }
 
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null
+                ? error.getCause()
+                : error;
+    }
+
     private static SSLContext createTrustAllSslContext()
             throws NoSuchAlgorithmException, KeyManagementException {
         TrustManager[] trustAll = new TrustManager[]{
@@ -0,0 +1,165 @@
+package com.sap.adt.mcp.sap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * A fixed set of independently logged-in SAP sessions.
+ *
+ * <p>Each member is its own {@link AdtRestClient} with its own cookie jar and
+ * CSRF token, so SAP sees separate security sessions and processes their
+ * requests in parallel instead of queueing them behind one session.</p>
+ *
+ * <p>The members are split once, when the pool is built: the first half
+ * (rounded up) serves stateless requests, the rest is reserved for stateful
+ * sequences. Stateless requests take {@link #next()}, which picks the least
+ * busy stateless member. A stateful sequence (lock, write, unlock) takes a
+ * {@link #lease()} of a reserved member and sends every step through the
+ * leased client, so all of them reach the same SAP session. A member holding
+ * locks or other session state therefore never serves a stateless request.
+ * That split needs at least two members.</p>
+ */
+public final class AdtSessionPool {
+
+    public static final int DEFAULT_SIZE = 4;
+    public static final int MIN_SIZE = 2;
+
+    private final List<AdtRestClient> members;
+    /** Members 0 to statelessCount - 1 serve stateless requests, the others leases. */
+    private final int statelessCount;
+    private final AtomicIntegerArray leases;
+    private final AtomicInteger rotation = new AtomicInteger();
+
+    public AdtSessionPool(List<AdtRestClient> members) {
+        if (members.size() < MIN_SIZE) {
+            throw new IllegalArgumentException("A session pool needs at least " + MIN_SIZE
+                    + " members: stateless requests and locks do not share a session");
+        }
+        this.members = Collections.unmodifiableList(new ArrayList<>(members));
+        this.statelessCount = members.size() - members.size() / 2;
+        this.leases = new AtomicIntegerArray(members.size());
+    }
+
+    /**
+     * Creates a pool of {@code size} clients for the same system and user,
+     * at least {@link #MIN_SIZE}.
+     */
+    public static AdtSessionPool create(String baseUrl, String username, String password,
+                                        String sapClient, String language, boolean allowInsecureSsl,
+                                        int size) {
+        List<AdtRestClient> members = new ArrayList<>();
+        for (int i = 0; i < Math.max(MIN_SIZE, size); i++) {
+            members.add(new AdtRestClient(baseUrl, username, password, sapClient, language, allowInsecureSsl));
+        }
+        return new AdtSessionPool(members);
+    }
+
+    /**
+     * Logs in every member. If one fails, the members logged in so far are
+     * logged out again and the error is rethrown.
+     */
+    public void login() throws Exception {
+        for (AdtRestClient member : members) {
+            try {
+                member.login();
+            } catch (Exception e) {
+                logout();
+                throw e;
+            }
+        }
+    }
+
+    public void logout() {
+        for (AdtRestClient member : members) {
+            member.logout();
+        }
+    }
+
+    public boolean isLoggedIn() {
+        for (AdtRestClient member : members) {
+            if (!member.isLoggedIn()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int size() {
+        return members.size();
+    }
+
+    /**
+     * Returns how many members are reserved for leases.
+     */
+    public int leaseSize() {
+        return members.size() - statelessCount;
+    }
+
+    /**
+     * Returns the client for a stateless request: the stateless member with
+     * the fewest pending requests.
+     */
+    public AdtRestClient next() {
+        int start = Math.floorMod(rotation.getAndIncrement(), statelessCount);
+        int best = start;
+        for (int i = 1; i < statelessCount; i++) {
+            int index = (start + i) % statelessCount;
+            if (members.get(index).getPendingRequests() < members.get(best).getPendingRequests()) {
+                best = index;
+            }
+        }
+        return members.get(best);
+    }
+
+    /**
+     * Pins one of the reserved sessions for a stateful sequence. Prefers the
+     * member with the fewest leases, then the least busy one; with more
+     * sequences than reserved members they share them. Close the lease when
+     * the sequence is done.
+     */
+    public Lease lease() {
+        int leaseCount = leaseSize();
+        int start = Math.floorMod(rotation.getAndIncrement(), leaseCount);
+        int best = -1;
+        long bestKey = Long.MAX_VALUE;
+        for (int i = 0; i < leaseCount; i++) {
+            // Ties are broken round-robin so idle members share the load evenly
+            int index = statelessCount + (start + i) % leaseCount;
+            long key = ((long) leases.get(index) << 32) | members.get(index).getPendingRequests();
+            if (key < bestKey) {
+                bestKey = key;
+                best = index;
+            }
+        }
+        leases.incrementAndGet(best);
+        return new Lease(best);
+    }
+
+    /**
+     * A session pinned to one stateful sequence.
+     */
+    public final class Lease implements AutoCloseable {
+
+        private final int index;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Lease(int index) {
+            this.index = index;
+        }
+
+        public AdtRestClient client() {
+            return members.get(index);
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                leases.decrementAndGet(index);
+            }
+        }
+    }
+}
@@ -1,23 +1,28 @@
 package com.sap.adt.mcp.sap;
 
-import java.io.StringReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-
-import org.w3c.dom.Attr;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NamedNodeMap;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.xml.sax.InputSource;
+import javax.xml.stream.XMLStreamException;
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+import com.sap.adt.mcp.sap.AdtXmlReader.Element;
 
 /**
  * Static utility class for parsing XML responses from SAP ADT REST APIs.
+ *
+ * <p>Each method reads the response in a single pass with {@link AdtXmlReader}
+ * instead of building a DOM. Where a format has alternative element names,
+ * all candidates are collected in that pass and the first non-empty one is
+ * used, in the order the lookups always had.</p>
  */
 public final class AdtXmlParser {
 
@@ -33,41 +38,57 @@ public final class AdtXmlParser {
         if (isBlank(xml)) return results;
 
         try {
-            Document doc = parseDocument(xml);
-            NodeList refs = doc.getElementsByTagNameNS(NS_ADT, "objectReference");
-            if (refs.getLength() == 0) {
-                refs = doc.getElementsByTagName("objectReference");
-            }
+            JsonArray adtRefs = new JsonArray();
+            JsonArray plainRefs = new JsonArray();
+            JsonArray atomEntries = new JsonArray();
+            JsonArray plainEntries = new JsonArray();
+
+            AdtXmlReader.read(xml, new AdtXmlReader.Handler() {
+                @Override
+                public void start(Element el) {
+                    offerToAncestors(el);
+                    boolean adtRef = el.is(NS_ADT, "objectReference");
+                    boolean plainRef = el.getName().equals("objectReference");
+                    if (adtRef || plainRef) {
+                        JsonObject entry = new JsonObject();
+                        entry.addProperty("name", el.attr("adtcore:name", el.attr("name", "")));
+                        entry.addProperty("type", el.attr("adtcore:type", el.attr("type", "")));
+                        entry.addProperty("uri", el.attr("uri", ""));
+                        entry.addProperty("description", el.attr("adtcore:description", el.attr("description", "")));
+                        entry.addProperty("packageName", el.attr("adtcore:packageName", el.attr("packageName", "")));
+                        if (adtRef) adtRefs.add(entry);
+                        if (plainRef) plainRefs.add(entry);
+                    }
 
-            if (refs.getLength() > 0) {
-                for (int i = 0; i < refs.getLength(); i++) {
-                    Element ref = (Element) refs.item(i);
-                    JsonObject entry = new JsonObject();
-                    entry.addProperty("name", attr(ref, "adtcore:name", attr(ref, "name", "")));
-                    entry.addProperty("type", attr(ref, "adtcore:type", attr(ref, "type", "")));
-                    entry.addProperty("uri", attr(ref, "uri", ""));
-                    entry.addProperty("description", attr(ref, "adtcore:description", attr(ref, "description", "")));
-                    entry.addProperty("packageName", attr(ref, "adtcore:packageName", attr(ref, "packageName", "")));
-                    results.add(entry);
+                    boolean atomEntry = el.is(NS_ATOM, "entry");
+                    boolean plainEntry = el.getName().equals("entry");
+                    if (atomEntry || plainEntry) {
+                        Pending entry = new Pending("title", "link", "category", "summary");
+                        el.setData(entry);
+                        if (atomEntry) atomEntries.add(entry.json);
+                        if (plainEntry) plainEntries.add(entry.json);
+                    }
                 }
-                return results;
-            }
 
-            NodeList entries = doc.getElementsByTagNameNS(NS_ATOM, "entry");
-            if (entries.getLength() == 0) {
-                entries = doc.getElementsByTagName("entry");
-            }
+                @Override
+                public void end(Element el) {
+                    Pending entry = (Pending) el.getData();
+                    if (entry != null) {
+                        entry.json.addProperty("name", entry.childText("title", ""));
+                        entry.json.addProperty("uri", entry.childAttr("link", "href", ""));
+                        entry.json.addProperty("type", entry.childText("category", ""));
+                        entry.json.addProperty("description", entry.childText("summary", ""));
+                        entry.json.addProperty("packageName", "");
+                    }
+                }
+            });
 
-            for (int i = 0; i < entries.getLength(); i++) {
-                Element entry = (Element) entries.item(i);
-                JsonObject obj = new JsonObject();
-                obj.addProperty("name", childText(entry, "title", ""));
-                obj.addProperty("uri", childAttr(entry, "link", "href", ""));
-                obj.addProperty("type", childText(entry, "category", ""));
-                obj.addProperty("description", childText(entry, "summary", ""));
-                obj.addProperty("packageName", "");
-                results.add(obj);
+            JsonArray refs = adtRefs.size() > 0 ? adtRefs : plainRefs;
+            if (refs.size() > 0) {
+                results.addAll(refs);
+                return results;
             }
+            results.addAll(atomEntries.size() > 0 ? atomEntries : plainEntries);
         } catch (Exception e) {
             System.err.println("AdtXmlParser.parseSearchResults failed: " + e.getMessage());
         }
@@ -79,17 +100,18 @@ public final class AdtXmlParser {
         if (isBlank(xml)) return "";
 
         try {
-            Document doc = parseDocument(xml);
-            NodeList nodes = doc.getElementsByTagName("LOCK_HANDLE");
-            if (nodes.getLength() > 0) {
-                String value = nodes.item(0).getTextContent();
-                if (value != null) return value.trim();
-            }
-            nodes = doc.getElementsByTagName("lock_handle");
-            if (nodes.getLength() > 0) {
-                String value = nodes.item(0).getTextContent();
-                if (value != null) return value.trim();
-            }
+            Element[] handles = new Element[2];
+            AdtXmlReader.read(xml, el -> {
+                if (handles[0] == null && el.getName().equals("LOCK_HANDLE")) {
+                    handles[0] = el;
+                    el.captureText();
+                } else if (handles[1] == null && el.getName().equals("lock_handle")) {
+                    handles[1] = el;
+                    el.captureText();
+                }
+            });
+            if (handles[0] != null) return handles[0].getText().trim();
+            if (handles[1] != null) return handles[1].getText().trim();
         } catch (Exception e) {
             System.err.println("AdtXmlParser.extractLockHandle failed: " + e.getMessage());
         }
@@ -101,45 +123,18 @@ public final class AdtXmlParser {
         if (isBlank(xml)) return results;
 
         try {
-            Document doc = parseDocument(xml);
-            NodeList messages = doc.getElementsByTagNameNS(NS_CHKRUN, "checkMessage");
-            if (messages.getLength() == 0) {
-                messages = doc.getElementsByTagName("chkrun:checkMessage");
-            }
-
-            if (messages.getLength() > 0) {
-                for (int i = 0; i < messages.getLength(); i++) {
-                    Element msg = (Element) messages.item(i);
-                    JsonObject finding = new JsonObject();
-
-                    String uri = attr(msg, "chkrun:uri", attr(msg, "uri", ""));
-                    finding.addProperty("uri", uri);
-
-                    String line = "";
-                    String offset = "";
-                    int hashIdx = uri.indexOf("#start=");
-                    if (hashIdx >= 0) {
-                        String fragment = uri.substring(hashIdx + 7);
-                        String[] parts = fragment.split(",");
-                        if (parts.length >= 1) line = parts[0];
-                        if (parts.length >= 2) offset = parts[1];
-                    }
-                    finding.addProperty("line", line);
-                    finding.addProperty("offset", offset);
-
-                    String type = attr(msg, "chkrun:type", attr(msg, "type", ""));
-                    String severity;
-                    switch (type.toUpperCase()) {
-                        case "E": severity = "error"; break;
-                        case "W": severity = "warning"; break;
-                        case "I": severity = "info"; break;
-                        default: severity = type;
-                    }
-                    finding.addProperty("severity", severity);
-                    finding.addProperty("text", attr(msg, "chkrun:shortText", attr(msg, "shortText", "")));
-                    results.add(finding);
+            JsonArray chkrunMessages = new JsonArray();
+            JsonArray prefixedMessages = new JsonArray();
+            AdtXmlReader.read(xml, el -> {
+                boolean chkrun = el.is(NS_CHKRUN, "checkMessage");
+                boolean prefixed = el.getName().equals("chkrun:checkMessage");
+                if (chkrun || prefixed) {
+                    JsonObject finding = syntaxFinding(el);
+                    if (chkrun) chkrunMessages.add(finding);
+                    if (prefixed) prefixedMessages.add(finding);
                 }
-            }
+            });
+            results.addAll(chkrunMessages.size() > 0 ? chkrunMessages : prefixedMessages);
         } catch (Exception e) {
             System.err.println("AdtXmlParser.parseSyntaxCheckResults failed: " + e.getMessage());
         }
@@ -147,6 +142,37 @@ public final class AdtXmlParser {
         return results;
     }
 
+    private static JsonObject syntaxFinding(Element msg) {
+        JsonObject finding = new JsonObject();
+
+        String uri = msg.attr("chkrun:uri", msg.attr("uri", ""));
+        finding.addProperty("uri", uri);
+
+        String line = "";
+        String offset = "";
+        int hashIdx = uri.indexOf("#start=");
+        if (hashIdx >= 0) {
+            String fragment = uri.substring(hashIdx + 7);
+            String[] parts = fragment.split(",");
+            if (parts.length >= 1) line = parts[0];
+            if (parts.length >= 2) offset = parts[1];
+        }
+        finding.addProperty("line", line);
+        finding.addProperty("offset", offset);
+
+        String type = msg.attr("chkrun:type", msg.attr("type", ""));
+        String severity;
+        switch (type.toUpperCase()) {
+            case "E": severity = "error"; break;
+            case "W": severity = "warning"; break;
+            case "I": severity = "info"; break;
+            default: severity = type;
+        }
+        finding.addProperty("severity", severity);
+        finding.addProperty("text", msg.attr("chkrun:shortText", msg.attr("shortText", "")));
+        return finding;
+    }
+
     public static JsonObject parseActivationResult(String xml) {
         JsonObject result = new JsonObject();
         result.addProperty("success", false);
@@ -156,26 +182,33 @@ public final class AdtXmlParser {
         if (isBlank(xml)) return result;
 
         try {
-            Document doc = parseDocument(xml);
-            Element root = doc.getDocumentElement();
-            String severity = attr(root, "severity", attr(root, "chkrun:severity", ""));
-            boolean success = true;
+            Element[] root = new Element[1];
+            List<Element> msgElements = new ArrayList<>();
+            List<Element> messageElements = new ArrayList<>();
+            AdtXmlReader.read(xml, el -> {
+                if (root[0] == null) root[0] = el;
+                if (el.getName().equals("msg")) {
+                    el.captureText();
+                    msgElements.add(el);
+                } else if (el.getName().equals("message")) {
+                    el.captureText();
+                    messageElements.add(el);
+                }
+            });
 
-            NodeList msgNodes = doc.getElementsByTagName("msg");
-            if (msgNodes == null || msgNodes.getLength() == 0) {
-                msgNodes = doc.getElementsByTagName("message");
-            }
+            String severity = root[0].attr("severity", root[0].attr("chkrun:severity", ""));
+            boolean success = true;
 
-            for (int i = 0; i < msgNodes.getLength(); i++) {
-                Element msgEl = (Element) msgNodes.item(i);
-                String text = msgEl.getTextContent();
-                if (text == null || text.trim().isEmpty()) {
-                    text = attr(msgEl, "text", attr(msgEl, "shortText", ""));
+            List<Element> msgNodes = !msgElements.isEmpty() ? msgElements : messageElements;
+            for (Element msgEl : msgNodes) {
+                String text = msgEl.getText();
+                if (text.trim().isEmpty()) {
+                    text = msgEl.attr("text", msgEl.attr("shortText", ""));
                 }
 
-                String msgSeverity = attr(msgEl, "severity", attr(msgEl, "type", "")).toLowerCase();
+                String msgSeverity = msgEl.attr("severity", msgEl.attr("type", "")).toLowerCase();
 
-                if (text != null && !text.trim().isEmpty()) {
+                if (!text.trim().isEmpty()) {
                     messages.add(text.trim());
                 }
 
@@ -197,48 +230,82 @@ public final class AdtXmlParser {
         } catch (Exception e) {
             System.err.println("AdtXmlParser.parseActivationResult failed: " + e.getMessage());
             result.addProperty("success", false);
-            messages.add("Parse error: " + e.getMessage());
+            messages.add("Parse error: " + AdtXmlReader.message(e));
         }
 
         return result;
     }
 
-    private static Document parseDocument(String xml) throws Exception {
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-        factory.setNamespaceAware(true);
-        factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", false);
-        factory.setFeature("http://xml.org/sax/features/external-general-entities", false);
-        factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+    /**
+     * JSON for an element that is completed when the element ends, together
+     * with the first descendant of each of a few names, i.e. what
+     * {@code getElementsByTagName(name).item(0)} returns. Descendants are
+     * offered through {@link #offerToAncestors}.
+     */
+    private static final class Pending {
+        final JsonObject json = new JsonObject();
+        private final String[] names;
+        private final Element[] first;
+
+        Pending(String... names) {
+            this.names = names;
+            this.first = new Element[names.length];
+        }
 
-        DocumentBuilder builder = factory.newDocumentBuilder();
-        InputSource source = new InputSource(new StringReader(xml));
-        return builder.parse(source);
-    }
+        void offer(Element el) {
+            for (int i = 0; i < names.length; i++) {
+                if (first[i] == null && names[i].equals(el.getName())) {
+                    first[i] = el;
+                    el.captureText();
+                }
+            }
+        }
 
-    private static String attr(Element el, String attrName, String defaultValue) {
-        if (el == null) return defaultValue;
-        String value = el.getAttribute(attrName);
-        return (value != null && !value.isEmpty()) ? value : defaultValue;
+        Element first(String tagName) {
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equals(tagName)) return first[i];
+            }
+            return null;
+        }
+
+        String childText(String tagName, String defaultValue) {
+            Element child = first(tagName);
+            if (child != null) {
+                String text = child.getText();
+                return !text.trim().isEmpty() ? text.trim() : defaultValue;
+            }
+            return defaultValue;
+        }
+
+        String childAttr(String tagName, String attrName, String defaultValue) {
+            Element child = first(tagName);
+            return child != null ? child.attr(attrName, defaultValue) : defaultValue;
+        }
     }
 
-    private static String childText(Element parent, String tagName, String defaultValue) {
-        if (parent == null) return defaultValue;
-        NodeList children = parent.getElementsByTagName(tagName);
-        if (children.getLength() > 0) {
-            String text = children.item(0).getTextContent();
-            return (text != null && !text.trim().isEmpty()) ? text.trim() : defaultValue;
+    private static void offerToAncestors(Element el) {
+        for (Element ancestor = el.getParent(); ancestor != null; ancestor = ancestor.getParent()) {
+            if (ancestor.getData() instanceof Pending) {
+                ((Pending) ancestor.getData()).offer(el);
+            }
         }
-        return defaultValue;
     }
 
-    private static String childAttr(Element parent, String tagName, String attrName, String defaultValue) {
-        if (parent == null) return defaultValue;
-        NodeList children = parent.getElementsByTagName(tagName);
-        if (children.getLength() > 0) {
-            Element child = (Element) children.item(0);
-            return attr(child, attrName, defaultValue);
+    /**
+     * Adds {@code json} to the array {@code arrayName} of every open ancestor
+     * named {@code ancestorName} that is being collected.
+     *
+     * @return true if there was such an ancestor
+     */
+    private static boolean addToAncestors(Element el, String ancestorName, String arrayName, JsonObject json) {
+        boolean added = false;
+        for (Element ancestor = el.getParent(); ancestor != null; ancestor = ancestor.getParent()) {
+            if (ancestor.getName().equals(ancestorName) && ancestor.getData() instanceof Pending) {
+                ((Pending) ancestor.getData()).json.getAsJsonArray(arrayName).add(json);
+                added = true;
+            }
         }
-        return defaultValue;
+        return added;
     }
 
     /**
@@ -253,79 +320,95 @@ public final class AdtXmlParser {
         if (isBlank(xml)) return result;
 
         try {
-            Document doc = parseDocument(xml);
-
-            // Look for alert nodes
-            NodeList alertNodes = doc.getElementsByTagName("alert");
-            for (int i = 0; i < alertNodes.getLength(); i++) {
-                Element alert = (Element) alertNodes.item(i);
-                JsonObject alertObj = new JsonObject();
-                alertObj.addProperty("kind", attr(alert, "kind", ""));
-                alertObj.addProperty("severity", attr(alert, "severity", ""));
-
-                // Get title and details
-                NodeList titles = alert.getElementsByTagName("title");
-                if (titles.getLength() > 0) {
-                    alertObj.addProperty("title", titles.item(0).getTextContent());
-                }
-
-                NodeList details = alert.getElementsByTagName("detail");
-                if (details.getLength() > 0) {
-                    alertObj.addProperty("detail", details.item(0).getTextContent());
-                }
-
-                String severity = attr(alert, "severity", "").toLowerCase();
-                if (severity.contains("fatal") || severity.contains("critical")) {
-                    result.addProperty("success", false);
-                }
-
-                alerts.add(alertObj);
-            }
-
-            // Look for program nodes with test results
-            NodeList programs = doc.getElementsByTagName("program");
+            JsonArray alertResults = new JsonArray();
             JsonArray programResults = new JsonArray();
-            for (int i = 0; i < programs.getLength(); i++) {
-                Element prog = (Element) programs.item(i);
-                JsonObject progObj = new JsonObject();
-                progObj.addProperty("name", attr(prog, "adtcore:name", attr(prog, "name", "")));
-                progObj.addProperty("uri", attr(prog, "adtcore:uri", attr(prog, "uri", "")));
-
-                // Count test classes and methods
-                NodeList testClasses = prog.getElementsByTagName("testClass");
-                JsonArray classes = new JsonArray();
-                for (int j = 0; j < testClasses.getLength(); j++) {
-                    Element tc = (Element) testClasses.item(j);
-                    JsonObject tcObj = new JsonObject();
-                    tcObj.addProperty("name", attr(tc, "adtcore:name", attr(tc, "name", "")));
-
-                    NodeList methods = tc.getElementsByTagName("testMethod");
-                    JsonArray methodArr = new JsonArray();
-                    for (int k = 0; k < methods.getLength(); k++) {
-                        Element m = (Element) methods.item(k);
-                        JsonObject mObj = new JsonObject();
-                        mObj.addProperty("name", attr(m, "adtcore:name", attr(m, "name", "")));
-                        mObj.addProperty("executionTime", attr(m, "executionTime", "0"));
+            boolean[] failed = new boolean[1];
+
+            AdtXmlReader.read(xml, new AdtXmlReader.Handler() {
+                @Override
+                public void start(Element el) {
+                    offerToAncestors(el);
+                    switch (el.getName()) {
+                        case "alert": {
+                            // Every alert, also those inside test methods
+                            Pending alert = new Pending("title", "detail");
+                            alert.json.addProperty("kind", el.attr("kind", ""));
+                            alert.json.addProperty("severity", el.attr("severity", ""));
+                            String severity = el.attr("severity", "").toLowerCase();
+                            if (severity.contains("fatal") || severity.contains("critical")) {
+                                failed[0] = true;
+                            }
+                            el.setData(alert);
+                            alertResults.add(alert.json);
+                            break;
+                        }
+                        case "program": {
+                            Pending prog = new Pending();
+                            prog.json.addProperty("name", el.attr("adtcore:name", el.attr("name", "")));
+                            prog.json.addProperty("uri", el.attr("adtcore:uri", el.attr("uri", "")));
+                            prog.json.add("testClasses", new JsonArray());
+                            el.setData(prog);
+                            programResults.add(prog.json);
+                            break;
+                        }
+                        case "testClass": {
+                            Pending tc = new Pending();
+                            tc.json.addProperty("name", el.attr("adtcore:name", el.attr("name", "")));
+                            tc.json.add("methods", new JsonArray());
+                            if (addToAncestors(el, "program", "testClasses", tc.json)) {
+                                el.setData(tc);
+                            }
+                            break;
+                        }
+                        case "testMethod": {
+                            Pending m = new Pending("alert");
+                            m.json.addProperty("name", el.attr("adtcore:name", el.attr("name", "")));
+                            m.json.addProperty("executionTime", el.attr("executionTime", "0"));
+                            if (addToAncestors(el, "testClass", "methods", m.json)) {
+                                el.setData(m);
+                            }
+                            break;
+                        }
+                        default:
+                            break;
+                    }
+                }
 
+                @Override
+                public void end(Element el) {
+                    Pending pending = (Pending) el.getData();
+                    if (pending == null) {
+                        return;
+                    }
+                    if (el.getName().equals("alert")) {
+                        // Get title and details
+                        Element title = pending.first("title");
+                        if (title != null) {
+                            pending.json.addProperty("title", title.getText());
+                        }
+                        Element detail = pending.first("detail");
+                        if (detail != null) {
+                            pending.json.addProperty("detail", detail.getText());
+                        }
+                    } else if (el.getName().equals("testMethod")) {
                         // Check for alerts in method
-                        NodeList mAlerts = m.getElementsByTagName("alert");
-                        if (mAlerts.getLength() > 0) {
-                            Element mAlert = (Element) mAlerts.item(0);
-                            String kind = attr(mAlert, "kind", "");
-                            mObj.addProperty("status", kind.isEmpty() ? "passed" : kind);
+                        Element mAlert = pending.first("alert");
+                        if (mAlert != null) {
+                            String kind = mAlert.attr("kind", "");
+                            pending.json.addProperty("status", kind.isEmpty() ? "passed" : kind);
                             if (kind.equalsIgnoreCase("failedAssertion") || kind.equalsIgnoreCase("error")) {
-                                result.addProperty("success", false);
+                                failed[0] = true;
                             }
                         } else {
-                            mObj.addProperty("status", "passed");
+                            pending.json.addProperty("status", "passed");
                         }
-                        methodArr.add(mObj);
                     }
-                    tcObj.add("methods", methodArr);
-                    classes.add(tcObj);
                 }
-                progObj.add("testClasses", classes);
-                programResults.add(progObj);
+            });
+
+            alerts.addAll(alertResults);
+            if (failed[0]) {
+                result.addProperty("success", false);
             }
             result.add("programs", programResults);
 
@@ -336,65 +419,205 @@ public final class AdtXmlParser {
         return result;
     }
 
+    /**
+     * The values of one data preview row, kept until the row ends because
+     * prefixed values take precedence over plain ones.
+     */
+    private static final class PreviewRow {
+        final JsonSpool spool;
+        final int slot;
+        final List<Element> prefixed = new ArrayList<>();
+        final List<Element> plain = new ArrayList<>();
+
+        PreviewRow(JsonSpool spool) {
+            this.spool = spool;
+            this.slot = spool.reserve();
+        }
+    }
+
     /**
      * Parse data preview (SQL query) results XML.
      */
     public static JsonObject parseDataPreview(String xml) {
-        JsonObject result = new JsonObject();
-        JsonArray columns = new JsonArray();
-        JsonArray rows = new JsonArray();
-        result.add("columns", columns);
-        result.add("rows", rows);
+        StringWriter json = new StringWriter();
+        try {
+            if (isBlank(xml)) {
+                writeEmptyDataPreview(new JsonWriter(json));
+            } else {
+                writeDataPreview(handler -> AdtXmlReader.read(xml, handler), new JsonWriter(json));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return JsonParser.parseString(json.toString()).getAsJsonObject();
+    }
 
-        if (isBlank(xml)) return result;
+    /**
+     * Transcodes a data preview response from the HTTP body straight into
+     * {@code out}, as the object {@link #parseDataPreview(String)} returns.
+     * Neither the response text nor a Gson tree is built: rows are kept as
+     * compact JSON until the document ends, since plain element names only
+     * count when no prefixed ones occur.
+     *
+     * @throws IOException if reading the response or writing to {@code out} fails;
+     *         a response that cannot be parsed gives an empty result, as in
+     *         {@link #parseDataPreview(String)}
+     */
+    public static void writeDataPreview(InputStream xml, JsonWriter out) throws IOException {
+        writeDataPreview(handler -> AdtXmlReader.read(xml, handler), out);
+    }
+
+    private static void writeDataPreview(XmlSource xml, JsonWriter out) throws IOException {
+        JsonSpool prefixedColumns = new JsonSpool();
+        JsonSpool plainColumns = new JsonSpool();
+        JsonSpool prefixedRows = new JsonSpool();
+        JsonSpool plainRows = new JsonSpool();
 
         try {
-            Document doc = parseDocument(xml);
+            xml.read(new AdtXmlReader.Handler() {
+                @Override
+                public void start(Element el) {
+                    switch (el.getName()) {
+                        case "dataPreview:column":
+                            column(prefixedColumns, el);
+                            break;
+                        case "column":
+                            column(plainColumns, el);
+                            break;
+                        case "dataPreview:row":
+                            el.setData(new PreviewRow(prefixedRows));
+                            break;
+                        case "row":
+                            el.setData(new PreviewRow(plainRows));
+                            break;
+                        case "dataPreview:value":
+                        case "value":
+                            for (Element ancestor = el.getParent(); ancestor != null; ancestor = ancestor.getParent()) {
+                                if (ancestor.getData() instanceof PreviewRow) {
+                                    PreviewRow row = (PreviewRow) ancestor.getData();
+                                    (el.getName().equals("value") ? row.plain : row.prefixed).add(el);
+                                    el.captureText();
+                                }
+                            }
+                            break;
+                        default:
+                            break;
+                    }
+                }
 
-            // Parse column metadata
-            NodeList metadataNodes = doc.getElementsByTagName("dataPreview:column");
-            if (metadataNodes.getLength() == 0) {
-                metadataNodes = doc.getElementsByTagName("column");
+                @Override
+                public void end(Element el) {
+                    if (el.getData() instanceof PreviewRow) {
+                        PreviewRow row = (PreviewRow) el.getData();
+                        List<String> values = new ArrayList<>();
+                        for (Element value : !row.prefixed.isEmpty() ? row.prefixed : row.plain) {
+                            values.add(value.getText());
+                        }
+                        row.spool.fill(row.slot, writer -> {
+                            writer.beginArray();
+                            for (String value : values) {
+                                writer.value(value);
+                            }
+                            writer.endArray();
+                        });
+                    }
+                }
+            });
+        } catch (CancellationException e) {
+            throw e;
+        } catch (XMLStreamException | RuntimeException e) {
+            if (e instanceof XMLStreamException && ((XMLStreamException) e).getNestedException() instanceof IOException) {
+                // The response could not be read, e.g. it timed out; that is no parse error
+                throw (IOException) ((XMLStreamException) e).getNestedException();
             }
+            System.err.println("AdtXmlParser.parseDataPreview failed: " + e.getMessage());
+            writeEmptyDataPreview(out);
+            return;
+        }
 
-            for (int i = 0; i < metadataNodes.getLength(); i++) {
-                Element col = (Element) metadataNodes.item(i);
-                JsonObject colObj = new JsonObject();
-                colObj.addProperty("name", attr(col, "dataPreview:name", attr(col, "name", "COL" + i)));
-                colObj.addProperty("type", attr(col, "dataPreview:type", attr(col, "type", "")));
-                colObj.addProperty("description", attr(col, "dataPreview:description", attr(col, "description", "")));
-                columns.add(colObj);
-            }
+        // Column metadata and data rows
+        JsonSpool rows = prefixedRows.size() > 0 ? prefixedRows : plainRows;
+        out.beginObject();
+        out.name("columns");
+        (prefixedColumns.size() > 0 ? prefixedColumns : plainColumns).writeTo(out);
+        out.name("rows");
+        rows.writeTo(out);
+        out.name("rowCount").value(rows.size());
+        out.endObject();
+    }
 
-            // Parse data rows
-            NodeList dataRows = doc.getElementsByTagName("dataPreview:row");
-            if (dataRows.getLength() == 0) {
-                dataRows = doc.getElementsByTagName("row");
-            }
+    private static void writeEmptyDataPreview(JsonWriter out) throws IOException {
+        out.beginObject();
+        out.name("columns").beginArray().endArray();
+        out.name("rows").beginArray().endArray();
+        out.endObject();
+    }
 
-            for (int i = 0; i < dataRows.getLength(); i++) {
-                Element row = (Element) dataRows.item(i);
-                JsonArray rowData = new JsonArray();
+    private static void column(JsonSpool columns, Element col) {
+        String name = col.attr("dataPreview:name", col.attr("name", "COL" + columns.size()));
+        String type = col.attr("dataPreview:type", col.attr("type", ""));
+        String description = col.attr("dataPreview:description", col.attr("description", ""));
+        columns.fill(columns.reserve(), writer -> writer.beginObject()
+                .name("name").value(name)
+                .name("type").value(type)
+                .name("description").value(description)
+                .endObject());
+    }
 
-                NodeList values = row.getElementsByTagName("dataPreview:value");
-                if (values.getLength() == 0) {
-                    values = row.getElementsByTagName("value");
-                }
+    private interface XmlSource {
+        void read(AdtXmlReader.Handler handler) throws XMLStreamException;
+    }
 
-                for (int j = 0; j < values.getLength(); j++) {
-                    String val = values.item(j).getTextContent();
-                    rowData.add(val != null ? val : "");
-                }
-                rows.add(rowData);
+    private interface JsonItem {
+        void write(JsonWriter writer) throws IOException;
+    }
+
+    /**
+     * A JSON array written as compact text while a document is read. Items are
+     * reserved when their element starts and filled in when it ends; they are
+     * written in the order they were reserved, so nested ones keep document order.
+     */
+    private static final class JsonSpool {
+        private final StringWriter text = new StringWriter();
+        private final JsonWriter writer = new JsonWriter(text);
+        private final List<JsonItem> pending = new ArrayList<>();
+        private int reserved;
+        private int written;
+
+        JsonSpool() {
+            try {
+                writer.beginArray();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
+        }
 
-            result.addProperty("rowCount", rows.size());
+        int size() {
+            return reserved;
+        }
 
-        } catch (Exception e) {
-            System.err.println("AdtXmlParser.parseDataPreview failed: " + e.getMessage());
+        int reserve() {
+            pending.add(null);
+            return reserved++;
         }
 
-        return result;
+        void fill(int slot, JsonItem item) {
+            pending.set(slot - written, item);
+            try {
+                while (!pending.isEmpty() && pending.get(0) != null) {
+                    pending.remove(0).write(writer);
+                    written++;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void writeTo(JsonWriter out) throws IOException {
+            writer.endArray();
+            writer.flush();
+            out.jsonValue(text.toString());
+        }
     }
 
     /**
@@ -409,54 +632,27 @@ public final class AdtXmlParser {
         if (isBlank(xml)) return result;
 
         try {
-            Document doc = parseDocument(xml);
-
-            // Parse findings
-            NodeList findingNodes = doc.getElementsByTagName("atcfinding");
-            if (findingNodes.getLength() == 0) {
-                findingNodes = doc.getElementsByTagName("finding");
-            }
-
-            for (int i = 0; i < findingNodes.getLength(); i++) {
-                Element f = (Element) findingNodes.item(i);
-                JsonObject finding = new JsonObject();
-                finding.addProperty("checkId", attr(f, "checkId", ""));
-                finding.addProperty("checkTitle", attr(f, "checkTitle", ""));
-                finding.addProperty("messageId", attr(f, "messageId", ""));
-                finding.addProperty("messageTitle", attr(f, "messageTitle", attr(f, "shortText", "")));
-                finding.addProperty("priority", attr(f, "priority", ""));
-                finding.addProperty("uri", attr(f, "uri", attr(f, "location", "")));
-
-                // Extract line number from URI if present
-                String uri = attr(f, "uri", attr(f, "location", ""));
-                String line = "";
-                int hashIdx = uri.indexOf("#start=");
-                if (hashIdx >= 0) {
-                    String fragment = uri.substring(hashIdx + 7);
-                    String[] parts = fragment.split(",");
-                    if (parts.length >= 1) line = parts[0];
+            JsonArray atcFindings = new JsonArray();
+            JsonArray plainFindings = new JsonArray();
+            JsonArray atcObjects = new JsonArray();
+            JsonArray plainObjects = new JsonArray();
+
+            AdtXmlReader.read(xml, el -> {
+                switch (el.getName()) {
+                    case "atcfinding": atcFindings.add(atcFinding(el)); break;
+                    case "finding": plainFindings.add(atcFinding(el)); break;
+                    case "atcobject": atcObjects.add(atcObject(el)); break;
+                    case "object": plainObjects.add(atcObject(el)); break;
+                    default: break;
                 }
-                finding.addProperty("line", line);
-
-                findings.add(finding);
-            }
+            });
 
+            // Parse findings
+            findings.addAll(atcFindings.size() > 0 ? atcFindings : plainFindings);
             result.addProperty("totalFindings", findings.size());
 
             // Also check for object-level info
-            NodeList objects = doc.getElementsByTagName("atcobject");
-            if (objects.getLength() == 0) {
-                objects = doc.getElementsByTagName("object");
-            }
-            JsonArray objectsArr = new JsonArray();
-            for (int i = 0; i < objects.getLength(); i++) {
-                Element obj = (Element) objects.item(i);
-                JsonObject objInfo = new JsonObject();
-                objInfo.addProperty("name", attr(obj, "adtcore:name", attr(obj, "name", "")));
-                objInfo.addProperty("type", attr(obj, "adtcore:type", attr(obj, "type", "")));
-                objInfo.addProperty("uri", attr(obj, "adtcore:uri", attr(obj, "uri", "")));
-                objectsArr.add(objInfo);
-            }
+            JsonArray objectsArr = atcObjects.size() > 0 ? atcObjects : plainObjects;
             if (objectsArr.size() > 0) {
                 result.add("objects", objectsArr);
             }
@@ -468,6 +664,36 @@ public final class AdtXmlParser {
         return result;
     }
 
+    private static JsonObject atcFinding(Element f) {
+        JsonObject finding = new JsonObject();
+        finding.addProperty("checkId", f.attr("checkId", ""));
+        finding.addProperty("checkTitle", f.attr("checkTitle", ""));
+        finding.addProperty("messageId", f.attr("messageId", ""));
+        finding.addProperty("messageTitle", f.attr("messageTitle", f.attr("shortText", "")));
+        finding.addProperty("priority", f.attr("priority", ""));
+        finding.addProperty("uri", f.attr("uri", f.attr("location", "")));
+
+        // Extract line number from URI if present
+        String uri = f.attr("uri", f.attr("location", ""));
+        String line = "";
+        int hashIdx = uri.indexOf("#start=");
+        if (hashIdx >= 0) {
+            String fragment = uri.substring(hashIdx + 7);
+            String[] parts = fragment.split(",");
+            if (parts.length >= 1) line = parts[0];
+        }
+        finding.addProperty("line", line);
+        return finding;
+    }
+
+    private static JsonObject atcObject(Element obj) {
+        JsonObject objInfo = new JsonObject();
+        objInfo.addProperty("name", obj.attr("adtcore:name", obj.attr("name", "")));
+        objInfo.addProperty("type", obj.attr("adtcore:type", obj.attr("type", "")));
+        objInfo.addProperty("uri", obj.attr("adtcore:uri", obj.attr("uri", "")));
+        return objInfo;
+    }
+
     /**
      * Parse inactive objects list XML.
      */
@@ -479,29 +705,48 @@ public final class AdtXmlParser {
         if (isBlank(xml)) return result;
 
         try {
-            Document doc = parseDocument(xml);
+            // Look for entry or inactiveObject elements, then object references
+            JsonArray entries = new JsonArray();
+            JsonArray inactiveObjects = new JsonArray();
+            JsonArray coreRefs = new JsonArray();
+            JsonArray plainRefs = new JsonArray();
+
+            AdtXmlReader.read(xml, new AdtXmlReader.Handler() {
+                @Override
+                public void start(Element el) {
+                    offerToAncestors(el);
+                    boolean entry = el.getName().equals("entry");
+                    boolean inactiveObject = el.getName().equals("inactiveObject");
+                    boolean coreRef = el.is(NS_ADT_CORE, "objectReference");
+                    boolean plainRef = el.getName().equals("objectReference");
+                    if (entry || inactiveObject || coreRef || plainRef) {
+                        Pending obj = new Pending("title", "link", "summary");
+                        el.setData(obj);
+                        if (entry) entries.add(obj.json);
+                        if (inactiveObject) inactiveObjects.add(obj.json);
+                        if (coreRef) coreRefs.add(obj.json);
+                        if (plainRef) plainRefs.add(obj.json);
+                    }
+                }
 
-            // Look for entry or inactiveObject elements
-            NodeList entries = doc.getElementsByTagName("entry");
-            if (entries.getLength() == 0) {
-                entries = doc.getElementsByTagName("inactiveObject");
-            }
-            if (entries.getLength() == 0) {
-                entries = doc.getElementsByTagNameNS(NS_ADT_CORE, "objectReference");
-            }
-            if (entries.getLength() == 0) {
-                entries = doc.getElementsByTagName("objectReference");
-            }
+                @Override
+                public void end(Element el) {
+                    Pending obj = (Pending) el.getData();
+                    if (obj != null) {
+                        obj.json.addProperty("name", el.attr("adtcore:name", el.attr("name", obj.childText("title", ""))));
+                        obj.json.addProperty("type", el.attr("adtcore:type", el.attr("type", "")));
+                        obj.json.addProperty("uri", el.attr("adtcore:uri", el.attr("uri", obj.childAttr("link", "href", ""))));
+                        obj.json.addProperty("description", el.attr("adtcore:description", el.attr("description", obj.childText("summary", ""))));
+                        obj.json.addProperty("user", el.attr("adtcore:responsible", el.attr("responsible", "")));
+                    }
+                }
+            });
 
-            for (int i = 0; i < entries.getLength(); i++) {
-                Element entry = (Element) entries.item(i);
-                JsonObject obj = new JsonObject();
-                obj.addProperty("name", attr(entry, "adtcore:name", attr(entry, "name", childText(entry, "title", ""))));
-                obj.addProperty("type", attr(entry, "adtcore:type", attr(entry, "type", "")));
-                obj.addProperty("uri", attr(entry, "adtcore:uri", attr(entry, "uri", childAttr(entry, "link", "href", ""))));
-                obj.addProperty("description", attr(entry, "adtcore:description", attr(entry, "description", childText(entry, "summary", ""))));
-                obj.addProperty("user", attr(entry, "adtcore:responsible", attr(entry, "responsible", "")));
-                objects.add(obj);
+            for (JsonArray candidates : List.of(entries, inactiveObjects, coreRefs, plainRefs)) {
+                if (candidates.size() > 0) {
+                    objects.addAll(candidates);
+                    break;
+                }
             }
 
             result.addProperty("count", objects.size());
@@ -522,89 +767,89 @@ public final class AdtXmlParser {
         if (isBlank(xml)) return result;
 
         try {
-            Document doc = parseDocument(xml);
-            Element root = doc.getDocumentElement();
-
-            // Extract basic info from root
-            result.addProperty("name", attr(root, "adtcore:name", attr(root, "name", "")));
-            result.addProperty("type", attr(root, "adtcore:type", attr(root, "type", "")));
-            result.addProperty("description", attr(root, "adtcore:description", attr(root, "description", "")));
-            result.addProperty("version", attr(root, "adtcore:version", attr(root, "version", "")));
-            result.addProperty("createdBy", attr(root, "adtcore:createdBy", ""));
-            result.addProperty("changedBy", attr(root, "adtcore:changedBy", ""));
-            result.addProperty("masterLanguage", attr(root, "adtcore:masterLanguage", ""));
-
-            // Package reference
-            NodeList pkgRefs = doc.getElementsByTagName("packageRef");
-            if (pkgRefs.getLength() == 0) {
-                pkgRefs = doc.getElementsByTagNameNS(NS_ADT_CORE, "packageRef");
-            }
-            if (pkgRefs.getLength() > 0) {
-                Element pkg = (Element) pkgRefs.item(0);
-                result.addProperty("packageName", attr(pkg, "adtcore:name", attr(pkg, "name", "")));
-            }
-
-            // For classes - get includes (definitions, implementations, etc.)
+            // root, plain packageRef, adtcore packageRef
+            Element[] found = new Element[3];
             JsonArray includes = new JsonArray();
-            NodeList includeNodes = doc.getElementsByTagName("include");
-            for (int i = 0; i < includeNodes.getLength(); i++) {
-                Element inc = (Element) includeNodes.item(i);
-                JsonObject incObj = new JsonObject();
-                incObj.addProperty("name", attr(inc, "adtcore:name", attr(inc, "name", "")));
-                incObj.addProperty("type", attr(inc, "adtcore:type", attr(inc, "type", "")));
-                incObj.addProperty("includeType", attr(inc, "includeType", attr(inc, "class:includeType", "")));
-                String uri = attr(inc, "adtcore:uri", attr(inc, "uri", ""));
-                incObj.addProperty("uri", uri);
-
-                // Source URI for accessing the code
-                NodeList links = inc.getElementsByTagName("link");
-                for (int j = 0; j < links.getLength(); j++) {
-                    Element link = (Element) links.item(j);
-                    String rel = attr(link, "rel", "");
-                    if (rel.contains("source") || rel.contains("main")) {
-                        incObj.addProperty("sourceUri", attr(link, "href", ""));
+            JsonArray fmodules = new JsonArray();
+            JsonArray functionModules = new JsonArray();
+            JsonArray plainLinks = new JsonArray();
+            JsonArray atomLinks = new JsonArray();
+
+            AdtXmlReader.read(xml, el -> {
+                if (found[0] == null) found[0] = el;
+                if (found[1] == null && el.getName().equals("packageRef")) found[1] = el;
+                if (found[2] == null && el.is(NS_ADT_CORE, "packageRef")) found[2] = el;
+
+                switch (el.getName()) {
+                    case "include": {
+                        JsonObject incObj = new JsonObject();
+                        incObj.addProperty("name", el.attr("adtcore:name", el.attr("name", "")));
+                        incObj.addProperty("type", el.attr("adtcore:type", el.attr("type", "")));
+                        incObj.addProperty("includeType", el.attr("includeType", el.attr("class:includeType", "")));
+                        incObj.addProperty("uri", el.attr("adtcore:uri", el.attr("uri", "")));
+                        el.setData(incObj);
+                        includes.add(incObj);
+                        break;
+                    }
+                    case "fmodule":
+                        fmodules.add(functionModule(el));
+                        break;
+                    case "functionModule":
+                        functionModules.add(functionModule(el));
+                        break;
+                    case "link": {
+                        // Source URI for accessing the code: first matching link of each include
+                        String rel = el.attr("rel", "");
+                        if (rel.contains("source") || rel.contains("main")) {
+                            for (Element ancestor = el.getParent(); ancestor != null; ancestor = ancestor.getParent()) {
+                                if (ancestor.getName().equals("include")) {
+                                    JsonObject incObj = (JsonObject) ancestor.getData();
+                                    if (!incObj.has("sourceUri")) {
+                                        incObj.addProperty("sourceUri", el.attr("href", ""));
+                                    }
+                                }
+                            }
+                        }
+                        plainLinks.add(link(el));
                         break;
                     }
+                    default:
+                        break;
                 }
+                if (el.is(NS_ATOM, "link")) {
+                    atomLinks.add(link(el));
+                }
+            });
+
+            // Extract basic info from root
+            Element root = found[0];
+            result.addProperty("name", root.attr("adtcore:name", root.attr("name", "")));
+            result.addProperty("type", root.attr("adtcore:type", root.attr("type", "")));
+            result.addProperty("description", root.attr("adtcore:description", root.attr("description", "")));
+            result.addProperty("version", root.attr("adtcore:version", root.attr("version", "")));
+            result.addProperty("createdBy", root.attr("adtcore:createdBy", ""));
+            result.addProperty("changedBy", root.attr("adtcore:changedBy", ""));
+            result.addProperty("masterLanguage", root.attr("adtcore:masterLanguage", ""));
 
-                includes.add(incObj);
+            // Package reference
+            Element pkg = found[1] != null ? found[1] : found[2];
+            if (pkg != null) {
+                result.addProperty("packageName", pkg.attr("adtcore:name", pkg.attr("name", "")));
             }
+
+            // For classes - includes (definitions, implementations, etc.)
             if (includes.size() > 0) {
                 result.add("includes", includes);
             }
 
-            // For function groups - get function modules
-            JsonArray functions = new JsonArray();
-            NodeList funcNodes = doc.getElementsByTagName("fmodule");
-            if (funcNodes.getLength() == 0) {
-                funcNodes = doc.getElementsByTagName("functionModule");
-            }
-            for (int i = 0; i < funcNodes.getLength(); i++) {
-                Element func = (Element) funcNodes.item(i);
-                JsonObject funcObj = new JsonObject();
-                funcObj.addProperty("name", attr(func, "adtcore:name", attr(func, "name", "")));
-                funcObj.addProperty("description", attr(func, "adtcore:description", attr(func, "description", "")));
-                funcObj.addProperty("uri", attr(func, "adtcore:uri", attr(func, "uri", "")));
-                functions.add(funcObj);
-            }
+            // For function groups - function modules
+            JsonArray functions = fmodules.size() > 0 ? fmodules : functionModules;
             if (functions.size() > 0) {
                 result.add("functionModules", functions);
             }
 
             // Links for navigation
-            JsonArray links = new JsonArray();
-            NodeList linkNodes = doc.getElementsByTagName("link");
-            if (linkNodes.getLength() == 0) {
-                linkNodes = doc.getElementsByTagNameNS(NS_ATOM, "link");
-            }
-            for (int i = 0; i < linkNodes.getLength(); i++) {
-                Element link = (Element) linkNodes.item(i);
-                JsonObject linkObj = new JsonObject();
-                linkObj.addProperty("rel", attr(link, "rel", ""));
-                linkObj.addProperty("href", attr(link, "href", ""));
-                linkObj.addProperty("type", attr(link, "type", ""));
-                links.add(linkObj);
-            }
+            JsonArray links = plainLinks.size() > 0 ? plainLinks : atomLinks;
             if (links.size() > 0) {
                 result.add("links", links);
             }
@@ -616,6 +861,22 @@ public final class AdtXmlParser {
         return result;
     }
 
+    private static JsonObject functionModule(Element func) {
+        JsonObject funcObj = new JsonObject();
+        funcObj.addProperty("name", func.attr("adtcore:name", func.attr("name", "")));
+        funcObj.addProperty("description", func.attr("adtcore:description", func.attr("description", "")));
+        funcObj.addProperty("uri", func.attr("adtcore:uri", func.attr("uri", "")));
+        return funcObj;
+    }
+
+    private static JsonObject link(Element link) {
+        JsonObject linkObj = new JsonObject();
+        linkObj.addProperty("rel", link.attr("rel", ""));
+        linkObj.addProperty("href", link.attr("href", ""));
+        linkObj.addProperty("type", link.attr("type", ""));
+        return linkObj;
+    }
+
     /**
      * Parse ABAP documentation response (HTML/XML mixed content).
      * Extracts readable text from the documentation.
@@ -629,35 +890,60 @@ public final class AdtXmlParser {
             // If it's XML, try to parse it
             if (content.trim().startsWith("<?xml") || content.trim().startsWith("<")) {
                 try {
-                    Document doc = parseDocument(content);
+                    DocuText documentation = new DocuText("documentation");
+                    DocuText docuDocumentation = new DocuText("docu:documentation");
+                    Element[] root = new Element[1];
+                    List<Element> shortTexts = new ArrayList<>();
+                    List<Element> longTexts = new ArrayList<>();
+
+                    AdtXmlReader.read(content, new AdtXmlReader.TextHandler() {
+                        @Override
+                        public void start(Element el) {
+                            if (root[0] == null) {
+                                root[0] = el;
+                                el.captureText();
+                            }
+                            documentation.start(el);
+                            docuDocumentation.start(el);
+                            if (el.getName().equals("shortText")) {
+                                el.captureText();
+                                shortTexts.add(el);
+                            } else if (el.getName().equals("longText")) {
+                                el.captureText();
+                                longTexts.add(el);
+                            }
+                        }
 
-                    // Look for documentation text in various elements
-                    NodeList docuNodes = doc.getElementsByTagName("documentation");
-                    if (docuNodes.getLength() > 0) {
-                        result.append(extractTextContent(docuNodes.item(0)));
-                    }
+                        @Override
+                        public void end(Element el) {
+                            documentation.end(el);
+                            docuDocumentation.end(el);
+                        }
 
-                    // Also check for docu:documentation
-                    docuNodes = doc.getElementsByTagName("docu:documentation");
-                    if (docuNodes.getLength() > 0) {
-                        result.append(extractTextContent(docuNodes.item(0)));
-                    }
+                        @Override
+                        public void text(Element parent, String text, boolean cdata) {
+                            documentation.text(text, cdata);
+                            docuDocumentation.text(text, cdata);
+                        }
+                    });
+
+                    // Look for documentation text in various elements, also docu:documentation
+                    documentation.appendTo(result);
+                    docuDocumentation.appendTo(result);
 
                     // Check for shortText elements
-                    NodeList shortTexts = doc.getElementsByTagName("shortText");
-                    for (int i = 0; i < shortTexts.getLength(); i++) {
-                        String text = shortTexts.item(i).getTextContent();
-                        if (text != null && !text.trim().isEmpty()) {
+                    for (Element shortText : shortTexts) {
+                        String text = shortText.getText();
+                        if (!text.trim().isEmpty()) {
                             if (result.length() > 0) result.append("\n");
                             result.append(text.trim());
                         }
                     }
 
                     // Check for longText elements
-                    NodeList longTexts = doc.getElementsByTagName("longText");
-                    for (int i = 0; i < longTexts.getLength(); i++) {
-                        String text = longTexts.item(i).getTextContent();
-                        if (text != null && !text.trim().isEmpty()) {
+                    for (Element longText : longTexts) {
+                        String text = longText.getText();
+                        if (!text.trim().isEmpty()) {
                             if (result.length() > 0) result.append("\n\n");
                             result.append(text.trim());
                         }
@@ -665,91 +951,77 @@ public final class AdtXmlParser {
 
                     // If still empty, try to get all text content
                     if (result.length() == 0) {
-                        result.append(cleanHtmlTags(doc.getDocumentElement().getTextContent()));
+                        result.append(AdtHtmlText.toText(root[0].getText()));
                     }
                 } catch (Exception e) {
                     // If XML parsing fails, treat as HTML/text
-                    result.append(cleanHtmlTags(content));
+                    result.setLength(0);
+                    result.append(AdtHtmlText.toText(content));
                 }
             } else {
                 // Plain text or HTML
-                result.append(cleanHtmlTags(content));
+                result.append(AdtHtmlText.toText(content));
             }
         } catch (Exception e) {
             System.err.println("AdtXmlParser.parseAbapDocu failed: " + e.getMessage());
             // Return cleaned content as fallback
-            return cleanHtmlTags(content);
+            return AdtHtmlText.toText(content);
         }
 
         return result.toString().trim();
     }
 
     /**
-     * Extract text content from a node, preserving some structure.
+     * Text content of the first element with a given name, preserving some
+     * structure: the trimmed text nodes inside it, with newlines around block
+     * elements. CDATA sections are skipped.
      */
-    private static String extractTextContent(Node node) {
-        if (node == null) return "";
-
-        StringBuilder sb = new StringBuilder();
-        NodeList children = node.getChildNodes();
-
-        for (int i = 0; i < children.getLength(); i++) {
-            Node child = children.item(i);
-            if (child.getNodeType() == Node.TEXT_NODE) {
-                String text = child.getTextContent();
-                if (text != null && !text.trim().isEmpty()) {
-                    sb.append(text.trim()).append(" ");
-                }
-            } else if (child.getNodeType() == Node.ELEMENT_NODE) {
-                String tagName = child.getNodeName().toLowerCase();
+    private static final class DocuText {
+        private final String tagName;
+        private final StringBuilder text = new StringBuilder();
+        private Element element;
+        private boolean seen;
+
+        DocuText(String tagName) {
+            this.tagName = tagName;
+        }
+
+        void start(Element el) {
+            if (element != null) {
                 // Add newlines for block elements
-                if (tagName.equals("p") || tagName.equals("br") || tagName.equals("div")
-                        || tagName.equals("li") || tagName.equals("tr")) {
-                    sb.append("\n");
+                String tag = el.getName().toLowerCase();
+                if (tag.equals("p") || tag.equals("br") || tag.equals("div")
+                        || tag.equals("li") || tag.equals("tr")) {
+                    text.append("\n");
                 }
-                sb.append(extractTextContent(child));
-                if (tagName.equals("p") || tagName.equals("div") || tagName.equals("li")) {
-                    sb.append("\n");
+            } else if (!seen && el.getName().equals(tagName)) {
+                element = el;
+                seen = true;
+            }
+        }
+
+        void end(Element el) {
+            if (el == element) {
+                element = null;
+            } else if (element != null) {
+                String tag = el.getName().toLowerCase();
+                if (tag.equals("p") || tag.equals("div") || tag.equals("li")) {
+                    text.append("\n");
                 }
             }
         }
 
-        return sb.toString();
-    }
+        void text(String value, boolean cdata) {
+            if (element != null && !cdata && !value.trim().isEmpty()) {
+                text.append(value.trim()).append(" ");
+            }
+        }
 
-    /**
-     * Remove HTML tags and clean up text.
-     */
-    private static String cleanHtmlTags(String html) {
-        if (html == null) return "";
-
-        // Replace common HTML entities
-        String text = html
-                .replace("&lt;", "<")
-                .replace("&gt;", ">")
-                .replace("&amp;", "&")
-                .replace("&nbsp;", " ")
-                .replace("&quot;", "\"")
-                .replace("&#39;", "'");
-
-        // Replace block elements with newlines
-        text = text.replaceAll("(?i)<br\\s*/?>", "\n");
-        text = text.replaceAll("(?i)</p>", "\n\n");
-        text = text.replaceAll("(?i)</div>", "\n");
-        text = text.replaceAll("(?i)</li>", "\n");
-        text = text.replaceAll("(?i)</tr>", "\n");
-        text = text.replaceAll("(?i)<li>", "• ");
-
-        // Remove all remaining HTML tags
-        text = text.replaceAll("<[^>]+>", "");
-
-        // Clean up whitespace
-        text = text.replaceAll("[ \\t]+", " ");
-        text = text.replaceAll("\n ", "\n");
-        text = text.replaceAll(" \n", "\n");
-        text = text.replaceAll("\n{3,}", "\n\n");
-
-        return text.trim();
+        void appendTo(StringBuilder result) {
+            if (seen) {
+                result.append(text);
+            }
+        }
     }
 
     private static boolean isBlank(String s) {
@@ -0,0 +1,294 @@
+package com.sap.adt.mcp.sap;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Reads an XML document in one forward pass and reports its elements to a
+ * {@link Handler}.
+ *
+ * <p>Only the currently open elements are kept. Names and attributes are
+ * looked up the way the DOM calls {@link AdtXmlParser} was written against
+ * resolve them: {@link Element#getName()} is the qualified name as written
+ * (what {@code getElementsByTagName} compares), {@link Element#is} compares
+ * namespace and local name, and {@link Element#attr} looks an attribute up
+ * by its qualified name.</p>
+ *
+ * <p>Text is only collected for elements that ask for it with
+ * {@link Element#captureText()} while they start; it then holds the text of
+ * all descendants, like {@code getTextContent()}.</p>
+ */
+final class AdtXmlReader {
+
+    /**
+     * Configured factories not in use. With {@link #REUSE_INSTANCE} the JDK
+     * factory hands out its last reader again once that has been closed, reset
+     * for the new input, instead of building a new one with all its buffers.
+     * That factory state is not thread-safe, so a read takes a factory from
+     * here and puts it back when done. The pool is not tied to threads: on
+     * Java 21 and later tool calls run on a new virtual thread each, where a
+     * per-thread factory would be built for every call and hardly reused.
+     */
+    private static final BlockingQueue<XMLInputFactory> FACTORIES =
+            new ArrayBlockingQueue<>(Math.max(4, 2 * Runtime.getRuntime().availableProcessors()));
+    private static final String MESSAGE_PREFIX = "Message: ";
+    private static final String REPORT_CDATA = "http://java.sun.com/xml/stream/properties/report-cdata-event";
+    private static final String REUSE_INSTANCE = "reuse-instance";
+
+    /**
+     * Receives the elements of a document in document order.
+     */
+    interface Handler {
+
+        /**
+         * Called when an element starts. Its attributes and ancestors are
+         * available; its text is not yet.
+         */
+        void start(Element element);
+
+        /**
+         * Called when an element ends. Captured text is complete by now.
+         */
+        default void end(Element element) {}
+    }
+
+    /**
+     * A handler that also receives the text nodes of the document. Adjacent
+     * character data is merged into one node as in a DOM, CDATA sections are
+     * reported on their own.
+     */
+    interface TextHandler extends Handler {
+
+        void text(Element parent, String text, boolean cdata);
+    }
+
+    /**
+     * An element that is open while the handler sees it.
+     */
+    static final class Element {
+
+        private final Element parent;
+        private final String name;
+        private final String localName;
+        private final String namespace;
+        private final String[] attributes;
+        private StringBuilder text;
+        private Object data;
+
+        private Element(XMLStreamReader reader, Element parent) {
+            this.parent = parent;
+            this.localName = reader.getLocalName();
+            this.name = qualify(reader.getPrefix(), localName);
+            String uri = reader.getNamespaceURI();
+            this.namespace = uri != null ? uri : "";
+            int count = reader.getAttributeCount();
+            this.attributes = new String[count * 2];
+            for (int i = 0; i < count; i++) {
+                attributes[2 * i] = qualify(reader.getAttributePrefix(i), reader.getAttributeLocalName(i));
+                attributes[2 * i + 1] = reader.getAttributeValue(i);
+            }
+        }
+
+        private static String qualify(String prefix, String localName) {
+            return prefix == null || prefix.isEmpty() ? localName : prefix + ":" + localName;
+        }
+
+        public Element getParent() {
+            return parent;
+        }
+
+        /**
+         * Returns the qualified name as written, e.g. {@code adtcore:objectReference}.
+         */
+        public String getName() {
+            return name;
+        }
+
+        public boolean is(String namespaceUri, String local) {
+            return localName.equals(local) && namespace.equals(namespaceUri);
+        }
+
+        /**
+         * Returns the attribute with the given qualified name, or the default
+         * if it is missing or empty.
+         */
+        public String attr(String attrName, String defaultValue) {
+            for (int i = 0; i < attributes.length; i += 2) {
+                if (attributes[i].equals(attrName)) {
+                    String value = attributes[i + 1];
+                    return (value != null && !value.isEmpty()) ? value : defaultValue;
+                }
+            }
+            return defaultValue;
+        }
+
+        /**
+         * Collects the text of this element and its descendants. Only takes
+         * effect when called from {@link Handler#start} for this element.
+         */
+        public void captureText() {
+            if (text == null) {
+                text = new StringBuilder();
+            }
+        }
+
+        /**
+         * Returns the captured text, or "" if none was captured.
+         */
+        public String getText() {
+            return text != null ? text.toString() : "";
+        }
+
+        /**
+         * Returns what the handler attached to this element, or null.
+         */
+        public Object getData() {
+            return data;
+        }
+
+        public void setData(Object data) {
+            this.data = data;
+        }
+    }
+
+    private AdtXmlReader() {}
+
+    static void read(String xml, Handler handler) throws XMLStreamException {
+        read(new StringReader(xml), handler);
+    }
+
+    static void read(Reader in, Handler handler) throws XMLStreamException {
+        XMLInputFactory factory = takeFactory();
+        try {
+            read(factory.createXMLStreamReader(in), handler);
+        } finally {
+            FACTORIES.offer(factory);
+        }
+    }
+
+    /**
+     * Reads from a byte stream; the encoding is taken from the XML declaration.
+     * The stream is not closed.
+     */
+    static void read(InputStream in, Handler handler) throws XMLStreamException {
+        XMLInputFactory factory = takeFactory();
+        try {
+            read(factory.createXMLStreamReader(in), handler);
+        } finally {
+            FACTORIES.offer(factory);
+        }
+    }
+
+    private static void read(XMLStreamReader reader, Handler handler) throws XMLStreamException {
+        TextHandler textHandler = handler instanceof TextHandler ? (TextHandler) handler : null;
+        try {
+            Element current = null;
+            int capturing = 0;
+            StringBuilder pending = new StringBuilder();
+            while (reader.hasNext()) {
+                int event = reader.next();
+                boolean characters = event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.SPACE;
+                if (textHandler != null && !characters && pending.length() > 0) {
+                    textHandler.text(current, pending.toString(), false);
+                    pending.setLength(0);
+                }
+
+                switch (event) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        current = new Element(reader, current);
+                        handler.start(current);
+                        if (current.text != null) {
+                            capturing++;
+                        }
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        handler.end(current);
+                        if (current.text != null) {
+                            capturing--;
+                        }
+                        current = current.parent;
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.SPACE:
+                    case XMLStreamConstants.CDATA:
+                        if (current == null) {
+                            break; // whitespace around the root element
+                        }
+                        if (capturing > 0) {
+                            for (Element element = current; element != null; element = element.parent) {
+                                if (element.text != null) {
+                                    element.text.append(reader.getTextCharacters(),
+                                            reader.getTextStart(), reader.getTextLength());
+                                }
+                            }
+                        }
+                        if (textHandler != null) {
+                            if (characters) {
+                                pending.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                            } else {
+                                textHandler.text(current, reader.getText(), true);
+                            }
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+        } finally {
+            reader.close(); // makes it available for reuse by the next read with its factory
+        }
+    }
+
+    /**
+     * Returns the message of a parse failure without the location prefix
+     * StAX puts in front of it.
+     */
+    static String message(Exception e) {
+        String message = e.getMessage();
+        if (e instanceof XMLStreamException && message != null) {
+            int start = message.indexOf(MESSAGE_PREFIX);
+            if (message.startsWith("ParseError at ") && start >= 0) {
+                return message.substring(start + MESSAGE_PREFIX.length());
+            }
+        }
+        return message;
+    }
+
+    /**
+     * Returns a pooled factory, or a new one if all are in use. Once more
+     * reads run at a time than the pool holds, the extra factories are
+     * dropped again when they come back.
+     */
+    private static XMLInputFactory takeFactory() {
+        XMLInputFactory factory = FACTORIES.poll();
+        return factory != null ? factory : createFactory();
+    }
+
+    private static XMLInputFactory createFactory() {
+        // The JDK implementation, without a service lookup; the properties below are its own
+        XMLInputFactory factory = XMLInputFactory.newDefaultFactory();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        // The JDK parser reports CDATA sections as plain characters unless asked
+        if (factory.isPropertySupported(REPORT_CDATA)) {
+            factory.setProperty(REPORT_CDATA, true);
+        }
+        // A reader still open, e.g. for a nested read, is never handed out twice
+        if (factory.isPropertySupported(REUSE_INSTANCE)) {
+            factory.setProperty(REUSE_INSTANCE, true);
+        }
+        // A DOCTYPE is accepted, but nothing it points to is fetched
+        factory.setXMLResolver((publicId, systemId, baseUri, namespace) -> new ByteArrayInputStream(new byte[0]));
+        return factory;
+    }
+}
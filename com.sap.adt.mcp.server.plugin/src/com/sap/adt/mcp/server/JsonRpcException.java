@@ -0,0 +1,35 @@
+package com.sap.adt.mcp.server;
+
+/**
+ * Exception that maps to a JSON-RPC error object with a specific error code.
+ */
+public class JsonRpcException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    /** The JSON sent is not a valid request object. */
+    public static final int INVALID_REQUEST = -32600;
+
+    /** Generic implementation-defined server error. */
+    public static final int SERVER_ERROR = -32000;
+
+    /** All tool execution slots are taken and the queue wait timed out. */
+    public static final int SERVER_BUSY = -32001;
+
+    /** The tool call ran out of its time budget. */
+    public static final int TOOL_TIMEOUT = -32002;
+
+    /** The request was cancelled by the client before it completed. */
+    public static final int REQUEST_CANCELLED = -32800;
+
+    private final int code;
+
+    public JsonRpcException(int code, String message) {
+        super(message);
+        this.code = code;
+    }
+
+    public int getCode() {
+        return code;
+    }
+}
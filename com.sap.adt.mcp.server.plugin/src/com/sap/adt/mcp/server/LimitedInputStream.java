@@ -0,0 +1,77 @@
+package com.sap.adt.mcp.server;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Input stream that fails with {@link TooLargeException} as soon as more than
+ * {@code limit} bytes have been read, so an oversized request body is rejected
+ * while it is being parsed instead of after it was buffered.
+ */
+class LimitedInputStream extends FilterInputStream {
+
+    /**
+     * Thrown when the stream exceeds its limit.
+     */
+    static class TooLargeException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long limit;
+
+        TooLargeException(long limit) {
+            super("Request body exceeds " + limit + " bytes");
+            this.limit = limit;
+        }
+
+        long getLimit() {
+            return limit;
+        }
+    }
+
+    private final long limit;
+    private long count;
+
+    LimitedInputStream(InputStream in, long limit) {
+        super(in);
+        this.limit = limit;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+            count(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) {
+            count(n);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        count(skipped);
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private void count(long n) throws TooLargeException {
+        count += n;
+        if (count > limit) {
+            throw new TooLargeException(limit);
+        }
+    }
+}
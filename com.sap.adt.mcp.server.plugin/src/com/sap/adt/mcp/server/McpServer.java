@@ -1,23 +1,52 @@
 package com.sap.adt.mcp.server;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
 import java.net.InetSocketAddress;
+import java.net.http.HttpTimeoutException;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
+import java.lang.reflect.Method;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonNull;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
 import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+import com.sap.adt.mcp.log.LogLevel;
+import com.sap.adt.mcp.log.McpLog;
+import com.sap.adt.mcp.sap.AdtCallScope;
 import com.sap.adt.mcp.tools.McpTool;
+import com.sap.adt.mcp.tools.ToolContext;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
@@ -27,7 +56,8 @@ import com.sun.net.httpserver.HttpServer;
  *
  * <p>Supports the 2024-11-05 MCP protocol over HTTP:</p>
  * <ul>
- *   <li>POST /mcp — JSON-RPC requests (initialize, tools/list, tools/call)</li>
+ *   <li>POST /mcp — JSON-RPC requests (initialize, tools/list, tools/call), single or batched;
+ *       a single tools/call is streamed as SSE when the client accepts text/event-stream</li>
  *   <li>GET /mcp — SSE stream for server-to-client notifications</li>
  *   <li>DELETE /mcp — Close session</li>
  * </ul>
@@ -35,15 +65,43 @@ import com.sun.net.httpserver.HttpServer;
 public class McpServer {
 
     private static final String MCP_PROTOCOL_VERSION = "2024-11-05";
-    private static final Gson GSON = new Gson();
+    private static final Gson GSON = new GsonBuilder().serializeNulls().create();
+
+    public static final int DEFAULT_MAX_CONCURRENT_TOOL_CALLS = 16;
+    public static final int DEFAULT_TOOL_CALL_QUEUE_TIMEOUT_SECONDS = 30;
+    public static final int DEFAULT_SESSION_IDLE_TIMEOUT_MINUTES = 30;
+    public static final int DEFAULT_MAX_SESSIONS = 64;
+    public static final int DEFAULT_MAX_REQUEST_MEGABYTES = 32;
+    public static final int DEFAULT_TOOL_TIMEOUT_SECONDS = 120;
+    public static final String DEFAULT_TOOL_TIMEOUTS = "sap_atc_run=600, sap_run_unit_test=300";
+    private static final int PROGRESS_INTERVAL_SECONDS = 5;
+    private static final int SSE_PING_INTERVAL_SECONDS = 15;
+    /** A client whose stream accepts no write for this long is taken as gone. */
+    private static final int SSE_WRITE_TIMEOUT_SECONDS = 30;
+    private static final int RESPONSE_BUFFER_CHARS = 8192;
 
     private HttpServer server;
+    private ExecutorService executor;
+    private ScheduledExecutorService scheduler;
+    private SseStreamRegistry sseStreams;
+    private Semaphore toolCallPermits;
     private final int port;
-    private final List<McpTool> tools = new ArrayList<>();
-    private final Map<String, Boolean> sessions = new ConcurrentHashMap<>();
+    private final ToolRegistry tools = new ToolRegistry(GSON, this::onToolsChanged);
+    private McpSessionRegistry sessions;
+    private final Map<String, ToolContext> inFlightCalls = new ConcurrentHashMap<>();
 
     private volatile boolean running = false;
     private ServerStatusListener statusListener;
+    private final List<Runnable> stopListeners = new CopyOnWriteArrayList<>();
+
+    private boolean useVirtualThreads = true;
+    private int maxConcurrentToolCalls = DEFAULT_MAX_CONCURRENT_TOOL_CALLS;
+    private int toolCallQueueTimeoutSeconds = DEFAULT_TOOL_CALL_QUEUE_TIMEOUT_SECONDS;
+    private int sessionIdleTimeoutMinutes = DEFAULT_SESSION_IDLE_TIMEOUT_MINUTES;
+    private int maxSessions = DEFAULT_MAX_SESSIONS;
+    private volatile long maxRequestBytes = DEFAULT_MAX_REQUEST_MEGABYTES * 1024L * 1024L;
+    private volatile int defaultToolTimeoutSeconds = DEFAULT_TOOL_TIMEOUT_SECONDS;
+    private volatile Map<String, Integer> toolTimeouts = parseToolTimeouts(DEFAULT_TOOL_TIMEOUTS);
 
     public interface ServerStatusListener {
         void onStatusChanged(boolean running, String message);
@@ -57,12 +115,116 @@ public class McpServer {
         this.statusListener = listener;
     }
 
+    /**
+     * Registers a callback that runs on every {@link #stop()}, after in-flight
+     * calls were cancelled and the MCP sessions were closed. Used to release
+     * SAP state held for clients, e.g. locks.
+     */
+    public void addStopListener(Runnable listener) {
+        stopListeners.add(listener);
+    }
+
+    /**
+     * Run each HTTP request on its own virtual thread when the JVM supports it (Java 21+).
+     * Falls back to a pool of daemon platform threads otherwise. Takes effect on next start.
+     */
+    public void setUseVirtualThreads(boolean useVirtualThreads) {
+        this.useVirtualThreads = useVirtualThreads;
+    }
+
+    /**
+     * Maximum number of tools/call requests executing at once. Takes effect on next start.
+     */
+    public void setMaxConcurrentToolCalls(int maxConcurrentToolCalls) {
+        this.maxConcurrentToolCalls = Math.max(1, maxConcurrentToolCalls);
+    }
+
+    /**
+     * How long a tools/call waits for a free slot before it is rejected as "server busy".
+     */
+    public void setToolCallQueueTimeoutSeconds(int toolCallQueueTimeoutSeconds) {
+        this.toolCallQueueTimeoutSeconds = Math.max(0, toolCallQueueTimeoutSeconds);
+    }
+
+    /**
+     * Sessions without activity and without an open SSE stream for this long are evicted.
+     * Takes effect on next start.
+     */
+    public void setSessionIdleTimeoutMinutes(int sessionIdleTimeoutMinutes) {
+        this.sessionIdleTimeoutMinutes = Math.max(1, sessionIdleTimeoutMinutes);
+    }
+
+    /**
+     * Maximum number of concurrent MCP sessions. Takes effect on next start.
+     */
+    public void setMaxSessions(int maxSessions) {
+        this.maxSessions = Math.max(1, maxSessions);
+    }
+
+    /**
+     * Largest accepted POST body. Bigger requests are answered with 413.
+     */
+    public void setMaxRequestMegabytes(int maxRequestMegabytes) {
+        this.maxRequestBytes = Math.max(1, maxRequestMegabytes) * 1024L * 1024L;
+    }
+
+    /**
+     * Time budget of a tools/call, from arrival to result. Every SAP request the tool
+     * makes gets the remaining budget as its timeout.
+     */
+    public void setDefaultToolTimeoutSeconds(int defaultToolTimeoutSeconds) {
+        this.defaultToolTimeoutSeconds = Math.max(1, defaultToolTimeoutSeconds);
+    }
+
+    /**
+     * Per-tool budgets overriding the default, as "tool=seconds" pairs separated by
+     * commas, e.g. "sap_atc_run=600, sap_run_unit_test=300". Invalid entries are skipped.
+     */
+    public void setToolTimeouts(String spec) {
+        this.toolTimeouts = parseToolTimeouts(spec);
+    }
+
+    private static Map<String, Integer> parseToolTimeouts(String spec) {
+        Map<String, Integer> timeouts = new HashMap<>();
+        if (spec == null) {
+            return timeouts;
+        }
+        for (String entry : spec.split(",")) {
+            int eq = entry.indexOf('=');
+            if (eq <= 0) {
+                continue;
+            }
+            try {
+                int seconds = Integer.parseInt(entry.substring(eq + 1).trim());
+                if (seconds > 0) {
+                    timeouts.put(entry.substring(0, eq).trim(), seconds);
+                }
+            } catch (NumberFormatException e) {
+                McpLog.info("Ignoring invalid tool timeout: " + entry.trim());
+            }
+        }
+        return timeouts;
+    }
+
+    private Duration toolBudget(String toolName) {
+        Integer seconds = toolTimeouts.get(toolName);
+        return Duration.ofSeconds(seconds != null ? seconds : defaultToolTimeoutSeconds);
+    }
+
     public void registerTool(McpTool tool) {
-        tools.add(tool);
+        tools.register(List.of(tool));
     }
 
     public void registerTools(List<McpTool> toolList) {
-        tools.addAll(toolList);
+        tools.register(toolList);
+    }
+
+    public void unregisterTool(String name) {
+        tools.remove(name);
+    }
+
+    public void clearTools() {
+        tools.clear();
     }
 
     public void start() throws IOException {
@@ -73,12 +235,25 @@ public class McpServer {
         server = HttpServer.create(new InetSocketAddress(port), 0);
         server.createContext("/mcp", new McpHandler());
         server.createContext("/health", new HealthHandler());
-        server.setExecutor(Executors.newCachedThreadPool());
+        executor = createExecutor();
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mcp-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sseStreams = new SseStreamRegistry(scheduler, executor, SSE_PING_INTERVAL_SECONDS, SSE_WRITE_TIMEOUT_SECONDS);
+        sessions = new McpSessionRegistry(scheduler,
+                TimeUnit.MINUTES.toMillis(sessionIdleTimeoutMinutes), maxSessions,
+                sseStreams::hasSession, session -> sseStreams.closeSession(session.getId()));
+        toolCallPermits = new Semaphore(maxConcurrentToolCalls, true);
+        server.setExecutor(executor);
         server.start();
 
         running = true;
         notifyStatus(true, "MCP Server running on port " + port);
-        System.out.println("MCP Server started on port " + port);
+        McpLog.info("MCP Server started on port " + port
+                + " (" + (isVirtualThreadExecutor() ? "virtual threads" : "platform threads")
+                + ", max " + maxConcurrentToolCalls + " concurrent tool calls)");
     }
 
     public void stop() {
@@ -86,11 +261,24 @@ public class McpServer {
             return;
         }
 
+        for (ToolContext call : inFlightCalls.values()) {
+            call.cancel("Server stopped");
+        }
+        sessions.closeAll();
+        sseStreams.closeAll();
+        for (Runnable listener : stopListeners) {
+            try {
+                listener.run();
+            } catch (RuntimeException e) {
+                McpLog.error("MCP stop listener failed", e);
+            }
+        }
         server.stop(0);
-        sessions.clear();
+        scheduler.shutdownNow();
+        executor.shutdownNow();
         running = false;
         notifyStatus(false, "MCP Server stopped");
-        System.out.println("MCP Server stopped");
+        McpLog.info("MCP Server stopped");
     }
 
     public boolean isRunning() {
@@ -102,7 +290,61 @@ public class McpServer {
     }
 
     public int getToolCount() {
-        return tools.size();
+        return tools.snapshot().size();
+    }
+
+    /**
+     * Sends a server-to-client notification to the open SSE streams of a session.
+     *
+     * @return the number of streams that received it
+     */
+    public int notifySession(String sessionId, JsonObject notification) {
+        return running ? sseStreams.sendToSession(sessionId, notification) : 0;
+    }
+
+    /**
+     * Sends a server-to-client notification to all open SSE streams.
+     *
+     * @return the number of streams that received it
+     */
+    public int notifyAllSessions(JsonObject notification) {
+        return running ? sseStreams.broadcast(notification) : 0;
+    }
+
+    /**
+     * Creates the request executor. Virtual threads are looked up reflectively
+     * so the plugin still runs on the Java 17 baseline.
+     */
+    private ExecutorService createExecutor() {
+        if (useVirtualThreads) {
+            try {
+                Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                return (ExecutorService) factory.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                // Java 17-20: no virtual threads, use platform threads
+            }
+        }
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "mcp-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return Executors.newCachedThreadPool(threadFactory);
+    }
+
+    private boolean isVirtualThreadExecutor() {
+        return executor != null && executor.getClass().getName().contains("ThreadPerTask");
+    }
+
+    private void onToolsChanged() {
+        if (!running) {
+            return;
+        }
+        JsonObject notification = new JsonObject();
+        notification.addProperty("jsonrpc", "2.0");
+        notification.addProperty("method", "notifications/tools/list_changed");
+        notifyAllSessions(notification);
     }
 
     private void notifyStatus(boolean running, String message) {
@@ -121,8 +363,8 @@ public class McpServer {
             exchange.getResponseHeaders().add("Access-Control-Allow-Origin", "*");
             exchange.getResponseHeaders().add("Access-Control-Allow-Methods", "POST, GET, DELETE, OPTIONS");
             exchange.getResponseHeaders().add("Access-Control-Allow-Headers",
-                    "Content-Type, Accept, Mcp-Session-Id");
-            exchange.getResponseHeaders().add("Access-Control-Expose-Headers", "Mcp-Session-Id");
+                    "Content-Type, Accept, Mcp-Session-Id, If-None-Match");
+            exchange.getResponseHeaders().add("Access-Control-Expose-Headers", "Mcp-Session-Id, ETag");
 
             String method = exchange.getRequestMethod();
 
@@ -152,44 +394,210 @@ public class McpServer {
          */
         private void handlePost(HttpExchange exchange) throws IOException {
             try {
-                InputStream is = exchange.getRequestBody();
-                String body = new String(is.readAllBytes(), StandardCharsets.UTF_8);
-
-                System.out.println("MCP Request: " + body);
+                JsonElement message = readMessage(exchange);
 
-                JsonObject request = JsonParser.parseString(body).getAsJsonObject();
-                String rpcMethod = request.has("method") ? request.get("method").getAsString() : "";
+                McpLog.body("MCP Request", message);
 
-                // Handle initialize — create session
                 String sessionId = exchange.getRequestHeaders().getFirst("Mcp-Session-Id");
+                McpSession session = sessions.touch(sessionId);
 
-                if ("initialize".equals(rpcMethod)) {
-                    sessionId = UUID.randomUUID().toString();
-                    sessions.put(sessionId, true);
+                if (isRequest(message, "tools/list")) {
+                    sendToolsList(exchange, message.getAsJsonObject(), sessionId);
+                    return;
                 }
 
-                JsonObject response = handleJsonRpc(request);
+                if (wantsEventStream(exchange) && isToolsCall(message)) {
+                    handleToolsCallStream(exchange, message.getAsJsonObject(), sessionId, session);
+                    return;
+                }
 
-                String responseStr = GSON.toJson(response);
-                System.out.println("MCP Response: " + responseStr);
+                CompletableFuture<? extends JsonElement> pending;
+                if (message.isJsonArray()) {
+                    pending = handleBatch(message.getAsJsonArray(), session);
+                } else {
+                    JsonObject request = message.getAsJsonObject();
+                    String rpcMethod = request.has("method") ? request.get("method").getAsString() : "";
+
+                    // Handle initialize — create session
+                    if ("initialize".equals(rpcMethod)) {
+                        session = sessions.create();
+                        sessionId = session.getId();
+                    }
 
-                byte[] responseBytes = responseStr.getBytes(StandardCharsets.UTF_8);
-                exchange.getResponseHeaders().add("Content-Type", "application/json");
-                if (sessionId != null) {
-                    exchange.getResponseHeaders().add("Mcp-Session-Id", sessionId);
+                    pending = handleJsonRpcAsync(request, new ToolContext(session, null));
                 }
-                exchange.sendResponseHeaders(200, responseBytes.length);
 
-                OutputStream os = exchange.getResponseBody();
-                os.write(responseBytes);
-                os.close();
+                // Asynchronous tools complete the exchange from the thread that finishes the call
+                String responseSessionId = sessionId;
+                pending.whenComplete((response, error) -> sendResponse(exchange, responseSessionId, response, error));
 
+            } catch (LimitedInputStream.TooLargeException e) {
+                McpLog.info("MCP request rejected: " + e.getMessage());
+                sendError(exchange, 413, e.getMessage());
             } catch (Exception e) {
-                e.printStackTrace();
+                McpLog.error("MCP request failed", e);
                 sendError(exchange, 500, "Internal server error: " + e.getMessage());
             }
         }
 
+        private void sendResponse(HttpExchange exchange, String sessionId,
+                                  JsonElement response, Throwable error) {
+            try {
+                if (error != null) {
+                    McpLog.error("MCP request failed", error);
+                    sendError(exchange, 500, "Internal server error: " + error.getMessage());
+                    return;
+                }
+
+                if (sessionId != null) {
+                    exchange.getResponseHeaders().add("Mcp-Session-Id", sessionId);
+                }
+                if (response.isJsonArray() && response.getAsJsonArray().isEmpty()) {
+                    // Batch of notifications only — nothing to answer
+                    exchange.sendResponseHeaders(202, -1);
+                    exchange.close();
+                    return;
+                }
+
+                McpLog.body("MCP Response", response);
+                sendJson(exchange, response);
+            } catch (IOException e) {
+                McpLog.error("MCP response write failed", e);
+                exchange.close();
+            }
+        }
+
+        /**
+         * Parses the request body straight from the exchange stream, without buffering
+         * it as bytes or a String first. A declared Content-Length above the limit is
+         * rejected up front; otherwise the limit is enforced while reading.
+         */
+        private JsonElement readMessage(HttpExchange exchange) throws IOException {
+            long limit = maxRequestBytes;
+            String contentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+            if (contentLength != null) {
+                try {
+                    if (Long.parseLong(contentLength.trim()) > limit) {
+                        throw new LimitedInputStream.TooLargeException(limit);
+                    }
+                } catch (NumberFormatException e) {
+                    // Malformed header, the limit is still checked while reading
+                }
+            }
+
+            Reader reader = new InputStreamReader(
+                    new LimitedInputStream(exchange.getRequestBody(), limit), StandardCharsets.UTF_8);
+            try {
+                return JsonParser.parseReader(reader);
+            } catch (JsonParseException e) {
+                if (e.getCause() instanceof LimitedInputStream.TooLargeException) {
+                    throw (LimitedInputStream.TooLargeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+
+        /**
+         * Answers tools/list from the pre-serialized snapshot. The snapshot's ETag is
+         * sent along; a client presenting it in If-None-Match gets 304 Not Modified.
+         */
+        private void sendToolsList(HttpExchange exchange, JsonObject request,
+                                   String sessionId) throws IOException {
+            long started = System.nanoTime();
+            ToolRegistry.Snapshot snapshot = tools.snapshot();
+            exchange.getResponseHeaders().add("ETag", snapshot.etag());
+            if (sessionId != null) {
+                exchange.getResponseHeaders().add("Mcp-Session-Id", sessionId);
+            }
+
+            String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+            if (snapshot.etag().equals(ifNoneMatch)) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+
+            JsonElement id = request.has("id") ? request.get("id") : JsonNull.INSTANCE;
+            byte[] prefix = ("{\"jsonrpc\":\"2.0\",\"id\":" + GSON.toJson(id) + ",\"result\":")
+                    .getBytes(StandardCharsets.UTF_8);
+            byte[] body = snapshot.listResultBytes();
+            byte[] suffix = {'}'};
+
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, prefix.length + body.length + suffix.length);
+            OutputStream os = exchange.getResponseBody();
+            os.write(prefix);
+            os.write(body);
+            os.write(suffix);
+            os.close();
+            logCall("tools/list", null, id, started, null);
+        }
+
+        /**
+         * Answers a single tools/call with an SSE stream. Headers go out immediately,
+         * progress notifications are sent while the tool runs (when the client passed
+         * a progressToken), and the JSON-RPC response is the last event.
+         */
+        private void handleToolsCallStream(HttpExchange exchange, JsonObject request,
+                                           String sessionId, McpSession session) throws IOException {
+            JsonElement progressToken = progressToken(request);
+            String toolName = toolName(request);
+
+            if (sessionId != null) {
+                exchange.getResponseHeaders().add("Mcp-Session-Id", sessionId);
+            }
+            SseStream stream = new SseStream(exchange, GSON);
+            stream.open();
+
+            ToolContext context = new ToolContext(session, (progress, message) -> {
+                if (progressToken != null) {
+                    stream.sendMessage(progressNotification(progressToken, progress, message));
+                }
+            });
+            context.reportProgress("Running " + toolName);
+
+            long started = System.currentTimeMillis();
+            // Runs on the shared scheduler thread, so the write itself goes to the executor
+            ScheduledFuture<?> heartbeat = scheduler.scheduleWithFixedDelay(() -> {
+                if (stream.isStalled(TimeUnit.SECONDS.toMillis(SSE_WRITE_TIMEOUT_SECONDS))) {
+                    stream.abort();
+                }
+                if (!stream.isOpen()) {
+                    // Client went away or stopped reading; nobody is waiting for the result anymore
+                    context.cancel("Client disconnected");
+                    return;
+                }
+                if (stream.isWriting()) {
+                    return;
+                }
+                long elapsed = (System.currentTimeMillis() - started) / 1000;
+                try {
+                    executor.execute(() -> {
+                        if (progressToken != null) {
+                            context.reportProgress("Running " + toolName + " (" + elapsed + "s)");
+                        } else {
+                            stream.sendComment("running " + elapsed + "s");
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    // Server stopping; the call is being cancelled
+                }
+            }, PROGRESS_INTERVAL_SECONDS, PROGRESS_INTERVAL_SECONDS, TimeUnit.SECONDS);
+
+            // The exchange is completed by whichever thread finishes the call
+            handleJsonRpcAsync(request, context)
+                    .whenComplete((response, error) -> {
+                        heartbeat.cancel(false);
+                        if (response == null) {
+                            response = errorResponse(request.get("id"), JsonRpcException.SERVER_ERROR,
+                                    error.getCause() != null ? error.getCause().getMessage() : error.getMessage());
+                        }
+                        McpLog.body("MCP Response (stream)", response);
+                        stream.sendMessage(response);
+                        stream.close();
+                    });
+        }
+
         /**
          * GET /mcp — SSE endpoint for server-to-client messages.
          * Claude Code uses this to verify the server is alive.
@@ -198,42 +606,26 @@ public class McpServer {
             String accept = exchange.getRequestHeaders().getFirst("Accept");
 
             if (accept != null && accept.contains("text/event-stream")) {
-                // SSE stream — keep connection open
-                exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
-                exchange.getResponseHeaders().add("Cache-Control", "no-cache");
-                exchange.getResponseHeaders().add("Connection", "keep-alive");
-
+                // SSE stream — keep connection open; pings and notifications
+                // are written by the stream registry, not by this thread
                 String sessionId = exchange.getRequestHeaders().getFirst("Mcp-Session-Id");
                 if (sessionId != null) {
+                    sessions.touch(sessionId);
                     exchange.getResponseHeaders().add("Mcp-Session-Id", sessionId);
                 }
 
-                exchange.sendResponseHeaders(200, 0);
-
-                // Send an initial comment to keep connection alive
-                OutputStream os = exchange.getResponseBody();
-                os.write(": connected\n\n".getBytes(StandardCharsets.UTF_8));
-                os.flush();
-
-                // Keep stream open — Claude Code will close when done
-                // This thread will block until the client disconnects
-                try {
-                    while (running) {
-                        Thread.sleep(15000);
-                        os.write(": ping\n\n".getBytes(StandardCharsets.UTF_8));
-                        os.flush();
-                    }
-                } catch (Exception e) {
-                    // Client disconnected or server stopped
+                SseStream stream = new SseStream(exchange, GSON);
+                stream.open();
+                if (stream.sendComment("connected")) {
+                    sseStreams.register(sessionId, stream);
                 }
-                try { os.close(); } catch (Exception e) { /* ignore */ }
             } else {
                 // Regular GET — return server info as JSON
                 JsonObject info = new JsonObject();
                 info.addProperty("name", "sap-adt-mcp-server");
                 info.addProperty("version", "1.0.0");
                 info.addProperty("protocol", MCP_PROTOCOL_VERSION);
-                info.addProperty("tools", tools.size());
+                info.addProperty("tools", tools.snapshot().size());
                 info.addProperty("status", "running");
 
                 byte[] responseBytes = GSON.toJson(info).getBytes(StandardCharsets.UTF_8);
@@ -252,47 +644,161 @@ public class McpServer {
             String sessionId = exchange.getRequestHeaders().getFirst("Mcp-Session-Id");
             if (sessionId != null) {
                 sessions.remove(sessionId);
+                sseStreams.closeSession(sessionId);
             }
             exchange.sendResponseHeaders(200, -1);
         }
 
-        private JsonObject handleJsonRpc(JsonObject request) {
+        /**
+         * Handles a JSON-RPC batch. Entries are dispatched concurrently on the request
+         * executor and the responses are returned in request order. Notifications
+         * (entries without an id) produce no response entry.
+         */
+        private CompletableFuture<JsonElement> handleBatch(JsonArray batch, McpSession session) {
+            if (batch.isEmpty()) {
+                return CompletableFuture.completedFuture(errorResponse(JsonNull.INSTANCE,
+                        JsonRpcException.INVALID_REQUEST, "Invalid Request: empty batch"));
+            }
+
+            List<CompletableFuture<JsonObject>> pending = new ArrayList<>(batch.size());
+            for (JsonElement entry : batch) {
+                if (!entry.isJsonObject()) {
+                    pending.add(CompletableFuture.completedFuture(errorResponse(JsonNull.INSTANCE,
+                            JsonRpcException.INVALID_REQUEST, "Invalid Request: batch entry is not an object")));
+                    continue;
+                }
+                JsonObject request = entry.getAsJsonObject();
+                ToolContext context = new ToolContext(session, null);
+                if (!request.has("id")) {
+                    // Notification: run inline, never answered
+                    handleJsonRpcAsync(request, context).join();
+                    continue;
+                }
+                // Blocking tools hold the thread they start on, so each entry gets its own
+                pending.add(CompletableFuture
+                        .supplyAsync(() -> handleJsonRpcAsync(request, context), executor)
+                        .thenCompose(Function.identity()));
+            }
+
+            return CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0]))
+                    .thenApply(done -> {
+                        JsonArray responses = new JsonArray();
+                        for (CompletableFuture<JsonObject> future : pending) {
+                            responses.add(future.join());
+                        }
+                        return responses;
+                    });
+        }
+
+        /**
+         * Dispatches a JSON-RPC request. Only tools/call completes asynchronously; the
+         * returned future always completes normally, failures become error responses.
+         */
+        private CompletableFuture<JsonObject> handleJsonRpcAsync(JsonObject request, ToolContext context) {
             String method = request.has("method") ? request.get("method").getAsString() : "";
             JsonElement idElement = request.get("id");
 
-            JsonObject response = new JsonObject();
-            response.addProperty("jsonrpc", "2.0");
-            if (idElement != null) {
-                response.add("id", idElement);
+            long started = System.nanoTime();
+            JsonElement paramsElement = request.get("params");
+            JsonObject params = (paramsElement != null && paramsElement.isJsonObject())
+                    ? paramsElement.getAsJsonObject()
+                    : new JsonObject();
+
+            // Tool calls can be cancelled by id until they complete
+            String callKey = "tools/call".equals(method) && idElement != null
+                    ? callKey(context, idElement)
+                    : null;
+            if (callKey != null) {
+                inFlightCalls.put(callKey, context);
             }
 
+            CompletableFuture<JsonObject> pending;
             try {
-                JsonElement paramsElement = request.get("params");
-                JsonObject params = (paramsElement != null && paramsElement.isJsonObject())
-                        ? paramsElement.getAsJsonObject()
-                        : new JsonObject();
-                JsonObject result = dispatchMethod(method, params);
-                response.add("result", result);
+                pending = "tools/call".equals(method)
+                        ? handleToolsCall(params, context)
+                        : CompletableFuture.completedFuture(dispatchMethod(method, params, context));
             } catch (Exception e) {
-                JsonObject error = new JsonObject();
-                error.addProperty("code", -32000);
-                error.addProperty("message", e.getMessage());
-                response.add("error", error);
+                pending = CompletableFuture.failedFuture(e);
+            }
+
+            return pending.handle((result, error) -> {
+                if (callKey != null) {
+                    inFlightCalls.remove(callKey, context);
+                }
+
+                JsonObject response = new JsonObject();
+                response.addProperty("jsonrpc", "2.0");
+                if (idElement != null) {
+                    response.add("id", idElement);
+                }
+
+                if (error == null) {
+                    response.add("result", result);
+                    logCall(method, params, idElement, started, null);
+                    return response;
+                }
+
+                Throwable e = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause()
+                        : error;
+                int code;
+                if (e instanceof JsonRpcException) {
+                    code = ((JsonRpcException) e).getCode();
+                } else if (e instanceof HttpTimeoutException && context.getCallScope().isExpired()) {
+                    code = JsonRpcException.TOOL_TIMEOUT;
+                } else if (e instanceof CancellationException || context.isCancelled()) {
+                    code = JsonRpcException.REQUEST_CANCELLED;
+                } else {
+                    code = JsonRpcException.SERVER_ERROR;
+                }
+                response.add("error", errorObject(code, e.getMessage()));
+                logCall(method, params, idElement, started, e);
+                return response;
+            });
+        }
+
+        private void logCall(String method, JsonObject params, JsonElement id, long startedNanos, Throwable error) {
+            if (!McpLog.isEnabled(LogLevel.INFO)) {
+                return;
+            }
+            StringBuilder line = new StringBuilder(method);
+            if (params != null && params.has("name")) {
+                line.append(' ').append(params.get("name").getAsString());
+            }
+            line.append(" id=").append(id)
+                .append(' ').append((System.nanoTime() - startedNanos) / 1_000_000).append(" ms");
+            if (error != null) {
+                line.append(" failed: ").append(error.getMessage());
             }
+            McpLog.info(line.toString());
+        }
 
+        private JsonObject errorResponse(JsonElement id, int code, String message) {
+            JsonObject response = new JsonObject();
+            response.addProperty("jsonrpc", "2.0");
+            response.add("id", id);
+            response.add("error", errorObject(code, message));
             return response;
         }
 
-        private JsonObject dispatchMethod(String method, JsonObject params) throws Exception {
+        private JsonObject errorObject(int code, String message) {
+            JsonObject error = new JsonObject();
+            error.addProperty("code", code);
+            error.addProperty("message", message);
+            return error;
+        }
+
+        private JsonObject dispatchMethod(String method, JsonObject params,
+                                          ToolContext context) throws Exception {
             switch (method) {
                 case "initialize":
                     return handleInitialize(params);
                 case "tools/list":
                     return handleToolsList();
-                case "tools/call":
-                    return handleToolsCall(params);
                 case "notifications/initialized":
                     return new JsonObject();
+                case "notifications/cancelled":
+                    return handleCancelled(params, context);
                 case "ping":
                     return new JsonObject();
                 default:
@@ -306,7 +812,7 @@ public class McpServer {
 
             JsonObject capabilities = new JsonObject();
             JsonObject toolsCap = new JsonObject();
-            toolsCap.addProperty("listChanged", false);
+            toolsCap.addProperty("listChanged", true);
             capabilities.add("tools", toolsCap);
             result.add("capabilities", capabilities);
 
@@ -318,40 +824,82 @@ public class McpServer {
             return result;
         }
 
-        private JsonObject handleToolsList() {
-            JsonObject result = new JsonObject();
-            JsonArray toolsArray = new JsonArray();
-
-            for (McpTool tool : tools) {
-                JsonObject toolDef = new JsonObject();
-                toolDef.addProperty("name", tool.getName());
-                toolDef.addProperty("description", tool.getDescription());
-                toolDef.add("inputSchema", tool.getInputSchema());
-                toolsArray.add(toolDef);
+        /**
+         * notifications/cancelled — aborts the in-flight tool call with the given
+         * request id from the same session. Unknown or finished ids are ignored.
+         */
+        private JsonObject handleCancelled(JsonObject params, ToolContext context) {
+            JsonElement requestId = params.get("requestId");
+            if (requestId != null) {
+                ToolContext call = inFlightCalls.get(callKey(context, requestId));
+                if (call != null) {
+                    String reason = params.has("reason") && !params.get("reason").isJsonNull()
+                            ? params.get("reason").getAsString()
+                            : "Cancelled by client";
+                    McpLog.info("Cancelling tools/call id=" + requestId + ": " + reason);
+                    call.cancel(reason);
+                }
             }
+            return new JsonObject();
+        }
 
-            result.add("tools", toolsArray);
-            return result;
+        private String callKey(ToolContext context, JsonElement id) {
+            String sessionId = context.getSession() != null ? context.getSession().getId() : "";
+            return sessionId + "#" + id;
+        }
+
+        private JsonObject handleToolsList() {
+            return tools.snapshot().listResult();
         }
 
-        private JsonObject handleToolsCall(JsonObject params) throws Exception {
+        /**
+         * Starts a tool call. The execution slot is held until the tool's future
+         * completes, not just until executeAsync returns.
+         */
+        @SuppressWarnings("try") // the binding only scopes the call
+        private CompletableFuture<JsonObject> handleToolsCall(JsonObject params, ToolContext context)
+                throws Exception {
             String toolName = params.has("name") ? params.get("name").getAsString() : "";
             JsonObject arguments = params.has("arguments")
                     ? params.getAsJsonObject("arguments")
                     : new JsonObject();
 
-            McpTool tool = findTool(toolName);
+            McpTool tool = tools.snapshot().find(toolName);
             if (tool == null) {
                 throw new Exception("Unknown tool: " + toolName);
             }
 
-            String toolResult = tool.execute(arguments);
+            // The budget covers the wait for a slot as well
+            AdtCallScope scope = context.getCallScope();
+            scope.setBudget(toolBudget(toolName));
+            long queueWaitMillis = Math.min(TimeUnit.SECONDS.toMillis(toolCallQueueTimeoutSeconds),
+                    scope.remaining().toMillis());
+            if (!toolCallPermits.tryAcquire(queueWaitMillis, TimeUnit.MILLISECONDS)) {
+                throw new JsonRpcException(JsonRpcException.SERVER_BUSY,
+                        "Server busy: " + maxConcurrentToolCalls + " tool calls already running. Retry later.");
+            }
+            CompletableFuture<JsonElement> execution;
+            try (AdtCallScope.Binding binding = scope.bind()) {
+                scope.throwIfCancelled();
+                execution = tool.executeAsync(arguments, context);
+            } catch (Exception e) {
+                toolCallPermits.release();
+                throw e;
+            }
 
+            return execution
+                    .whenComplete((toolResult, error) -> toolCallPermits.release())
+                    .thenApply(this::toolCallResult);
+        }
+
+        private JsonObject toolCallResult(JsonElement toolResult) {
             JsonObject result = new JsonObject();
             JsonArray content = new JsonArray();
             JsonObject textContent = new JsonObject();
             textContent.addProperty("type", "text");
-            textContent.addProperty("text", toolResult);
+            textContent.addProperty("text", toolResult.isJsonPrimitive()
+                    ? toolResult.getAsString()
+                    : toolResult.toString());
             content.add(textContent);
             result.add("content", content);
             result.addProperty("isError", false);
@@ -359,13 +907,75 @@ public class McpServer {
             return result;
         }
 
-        private McpTool findTool(String name) {
-            for (McpTool tool : tools) {
-                if (tool.getName().equals(name)) {
-                    return tool;
-                }
+        private boolean wantsEventStream(HttpExchange exchange) {
+            String accept = exchange.getRequestHeaders().getFirst("Accept");
+            return accept != null && accept.contains("text/event-stream");
+        }
+
+        private boolean isToolsCall(JsonElement message) {
+            return isRequest(message, "tools/call");
+        }
+
+        private boolean isRequest(JsonElement message, String rpcMethod) {
+            if (!message.isJsonObject()) {
+                return false;
+            }
+            JsonObject request = message.getAsJsonObject();
+            return request.has("id") && request.has("method")
+                    && rpcMethod.equals(request.get("method").getAsString());
+        }
+
+        private String toolName(JsonObject request) {
+            JsonObject params = request.has("params") && request.get("params").isJsonObject()
+                    ? request.getAsJsonObject("params")
+                    : new JsonObject();
+            return params.has("name") ? params.get("name").getAsString() : "";
+        }
+
+        private JsonElement progressToken(JsonObject request) {
+            if (!request.has("params") || !request.get("params").isJsonObject()) {
+                return null;
+            }
+            JsonObject params = request.getAsJsonObject("params");
+            if (!params.has("_meta") || !params.get("_meta").isJsonObject()) {
+                return null;
+            }
+            JsonElement token = params.getAsJsonObject("_meta").get("progressToken");
+            return token != null && !token.isJsonNull() ? token : null;
+        }
+
+        private JsonObject progressNotification(JsonElement progressToken, int progress, String message) {
+            JsonObject params = new JsonObject();
+            params.add("progressToken", progressToken);
+            params.addProperty("progress", progress);
+            params.addProperty("message", message);
+
+            JsonObject notification = new JsonObject();
+            notification.addProperty("jsonrpc", "2.0");
+            notification.addProperty("method", "notifications/progress");
+            notification.add("params", params);
+            return notification;
+        }
+
+        /**
+         * Serializes a response straight into the exchange body with chunked transfer
+         * encoding. No intermediate JSON string or byte array is built, so a multi-MB
+         * tool result is only held once, in the response tree.
+         */
+        private void sendJson(HttpExchange exchange, JsonElement response) throws IOException {
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, 0);
+            try (Writer out = new BufferedWriter(
+                    new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8),
+                    RESPONSE_BUFFER_CHARS)) {
+                JsonWriter writer = GSON.newJsonWriter(out);
+                GSON.toJson(response, writer);
+                writer.flush();
+            } catch (IOException | JsonIOException e) {
+                // Headers are already out, so no error status can be sent anymore
+                McpLog.error("MCP response write failed", e);
+                exchange.close();
             }
-            return null;
         }
 
         private void sendError(HttpExchange exchange, int code, String message) throws IOException {
@@ -383,7 +993,7 @@ public class McpServer {
     private class HealthHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            String response = "{\"status\":\"ok\",\"tools\":" + tools.size() + "}";
+            String response = "{\"status\":\"ok\",\"tools\":" + tools.snapshot().size() + "}";
             byte[] responseBytes = response.getBytes(StandardCharsets.UTF_8);
             exchange.getResponseHeaders().add("Content-Type", "application/json");
             exchange.sendResponseHeaders(200, responseBytes.length);
@@ -0,0 +1,119 @@
+package com.sap.adt.mcp.server;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import com.sap.adt.mcp.log.McpLog;
+import com.sap.adt.mcp.tools.ToolSession;
+
+/**
+ * An MCP client session with its last-activity timestamp and scratch state.
+ */
+public class McpSession implements ToolSession {
+
+    private final String id;
+    private final long createdAt;
+    private volatile long lastActivity;
+    private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+    private final List<Runnable> closeListeners = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    McpSession(String id) {
+        this.id = id;
+        this.createdAt = System.currentTimeMillis();
+        this.lastActivity = createdAt;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public long getLastActivity() {
+        return lastActivity;
+    }
+
+    void touch() {
+        lastActivity = System.currentTimeMillis();
+    }
+
+    public boolean isClosed() {
+        return closed.get();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T getAttribute(String key) {
+        return (T) attributes.get(key);
+    }
+
+    @Override
+    public void setAttribute(String key, Object value) {
+        attributes.put(key, value);
+    }
+
+    @Override
+    public void removeAttribute(String key) {
+        attributes.remove(key);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T computeAttributeIfAbsent(String key, Function<String, T> factory) {
+        if (closed.get()) {
+            // A closed session keeps no state; the factory still runs, so a
+            // close listener it registers runs right away
+            return factory.apply(key);
+        }
+        return (T) attributes.computeIfAbsent(key, factory);
+    }
+
+    /**
+     * Registers a close listener. A call still running when the session is
+     * closed may register one afterwards; it then runs right away, on the
+     * calling thread.
+     */
+    @Override
+    public void addCloseListener(Runnable listener) {
+        closeListeners.add(listener);
+        if (closed.get()) {
+            runListener(listener);
+        }
+    }
+
+    /**
+     * Runs the close listeners once and drops all state.
+     */
+    void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        attributes.clear();
+        for (Runnable listener : closeListeners) {
+            runListener(listener);
+        }
+    }
+
+    /**
+     * Runs a listener unless it ran already. Removing it from the list is the
+     * claim, so close() and a late addCloseListener() never both run it.
+     */
+    private void runListener(Runnable listener) {
+        if (!closeListeners.remove(listener)) {
+            return;
+        }
+        try {
+            listener.run();
+        } catch (Exception e) {
+            McpLog.error("MCP session close listener failed for " + id, e);
+        }
+    }
+}
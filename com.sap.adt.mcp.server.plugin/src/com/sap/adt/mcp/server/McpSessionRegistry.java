@@ -0,0 +1,121 @@
+package com.sap.adt.mcp.server;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import com.sap.adt.mcp.log.McpLog;
+
+/**
+ * Registry of MCP sessions with idle-timeout eviction and a bounded size.
+ *
+ * <p>A background sweeper closes sessions that have been idle longer than the
+ * timeout. Sessions for which {@code inUse} returns true (e.g. an open SSE
+ * stream) are kept. When the registry is full, creating a session evicts the
+ * least recently active one.</p>
+ */
+public class McpSessionRegistry {
+
+    private static final long SWEEP_INTERVAL_SECONDS = 60;
+
+    private final Map<String, McpSession> sessions = new ConcurrentHashMap<>();
+    private final long idleTimeoutMillis;
+    private final int maxSessions;
+    private final Predicate<String> inUse;
+    private final Consumer<McpSession> onClose;
+    private final ScheduledFuture<?> sweepTask;
+
+    public McpSessionRegistry(ScheduledExecutorService scheduler, long idleTimeoutMillis, int maxSessions,
+                              Predicate<String> inUse, Consumer<McpSession> onClose) {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.maxSessions = Math.max(1, maxSessions);
+        this.inUse = inUse;
+        this.onClose = onClose;
+        this.sweepTask = scheduler.scheduleWithFixedDelay(this::sweep,
+                SWEEP_INTERVAL_SECONDS, SWEEP_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Creates a new session, evicting the least recently active one if the registry is full.
+     */
+    public McpSession create() {
+        while (sessions.size() >= maxSessions) {
+            McpSession oldest = sessions.values().stream()
+                    .min(Comparator.comparingLong(McpSession::getLastActivity))
+                    .orElse(null);
+            if (oldest == null) {
+                break;
+            }
+            McpLog.info("MCP session limit reached, evicting " + oldest.getId());
+            remove(oldest.getId());
+        }
+        McpSession session = new McpSession(UUID.randomUUID().toString());
+        sessions.put(session.getId(), session);
+        return session;
+    }
+
+    /**
+     * Returns the session with the given id and marks it active. Unknown ids
+     * (e.g. from before a server restart) are adopted as new sessions, so
+     * clients keep working.
+     */
+    public McpSession touch(String sessionId) {
+        if (sessionId == null) {
+            return null;
+        }
+        McpSession session = sessions.get(sessionId);
+        if (session == null) {
+            if (sessions.size() >= maxSessions) {
+                return null;
+            }
+            session = sessions.computeIfAbsent(sessionId, McpSession::new);
+        }
+        session.touch();
+        return session;
+    }
+
+    public McpSession get(String sessionId) {
+        return sessionId != null ? sessions.get(sessionId) : null;
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    public void remove(String sessionId) {
+        McpSession session = sessions.remove(sessionId);
+        if (session != null) {
+            close(session);
+        }
+    }
+
+    public void closeAll() {
+        sweepTask.cancel(false);
+        for (String sessionId : sessions.keySet()) {
+            remove(sessionId);
+        }
+    }
+
+    private void sweep() {
+        long now = System.currentTimeMillis();
+        for (McpSession session : sessions.values()) {
+            if (now - session.getLastActivity() > idleTimeoutMillis && !inUse.test(session.getId())) {
+                McpLog.info("MCP session " + session.getId() + " idle, evicting");
+                remove(session.getId());
+            }
+        }
+    }
+
+    private void close(McpSession session) {
+        session.close();
+        if (onClose != null) {
+            onClose.accept(session);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.sap.adt.mcp.server;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonIOException;
+import com.google.gson.stream.JsonWriter;
+import com.sun.net.httpserver.HttpExchange;
+
+/**
+ * A Server-Sent Events response on an {@link HttpExchange}.
+ *
+ * <p>Writes are synchronized so that progress notifications and the final
+ * result can be sent from different threads. The first failed write marks
+ * the stream as closed. Messages are serialized straight into the response
+ * body; compact JSON never contains a raw newline, so it fits one data line.</p>
+ *
+ * <p>Socket writes block while the client does not read. The time a write has
+ * been pending is tracked, so a stalled stream can be detected from another
+ * thread and {@link #abort() aborted} without waiting for the write.</p>
+ */
+public class SseStream {
+
+    private final HttpExchange exchange;
+    private final Gson gson;
+    private Writer out;
+    private volatile boolean open;
+    /** System.nanoTime() when the pending write started, 0 while none is. */
+    private volatile long writingSince;
+
+    public SseStream(HttpExchange exchange, Gson gson) {
+        this.exchange = exchange;
+        this.gson = gson;
+    }
+
+    /**
+     * Sends the SSE response headers. Extra headers must be set on the exchange before.
+     */
+    public synchronized void open() throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+        exchange.getResponseHeaders().add("Cache-Control", "no-cache");
+        exchange.getResponseHeaders().add("Connection", "keep-alive");
+        exchange.sendResponseHeaders(200, 0);
+        out = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8));
+        open = true;
+    }
+
+    /**
+     * Sends a JSON-RPC message as a "message" event.
+     *
+     * @return false if the client is gone
+     */
+    public boolean sendMessage(JsonElement message) {
+        if (!open) {
+            return false;
+        }
+        synchronized (this) {
+            if (!open) {
+                return false;
+            }
+            writingSince = System.nanoTime();
+            try {
+                out.write("event: message\ndata: ");
+                JsonWriter writer = gson.newJsonWriter(out);
+                gson.toJson(message, writer);
+                out.write("\n\n");
+                out.flush();
+                return true;
+            } catch (IOException | JsonIOException e) {
+                open = false;
+                return false;
+            } finally {
+                writingSince = 0;
+            }
+        }
+    }
+
+    /**
+     * Sends an SSE comment line, used for keep-alives.
+     *
+     * @return false if the client is gone
+     */
+    public boolean sendComment(String comment) {
+        if (!open) {
+            return false;
+        }
+        synchronized (this) {
+            return write(": " + comment + "\n\n");
+        }
+    }
+
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * Returns true while a write is pending.
+     */
+    public boolean isWriting() {
+        return writingSince != 0;
+    }
+
+    /**
+     * Returns true if a write has been pending for longer than the timeout,
+     * i.e. the client stopped reading.
+     */
+    public boolean isStalled(long timeoutMillis) {
+        long since = writingSince;
+        return since != 0 && System.nanoTime() - since > TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    }
+
+    /**
+     * Marks the stream closed without waiting for a pending write; further
+     * sends fail right away. {@link #close()} must still be called, as it
+     * may block on the socket.
+     */
+    public void abort() {
+        open = false;
+    }
+
+    /**
+     * Closes the stream. While a write is pending, only the exchange is
+     * closed, which makes the pending write fail instead of waiting for it.
+     */
+    public void close() {
+        open = false;
+        if (isWriting()) {
+            exchange.close();
+            return;
+        }
+        synchronized (this) {
+            if (out != null) {
+                try { out.close(); } catch (IOException e) { /* ignore */ }
+            }
+            exchange.close();
+        }
+    }
+
+    private boolean write(String data) {
+        if (!open) {
+            return false;
+        }
+        writingSince = System.nanoTime();
+        try {
+            out.write(data);
+            out.flush();
+            return true;
+        } catch (IOException e) {
+            open = false;
+            return false;
+        } finally {
+            writingSince = 0;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.sap.adt.mcp.server;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.google.gson.JsonElement;
+
+/**
+ * Owns all open GET /mcp SSE streams.
+ *
+ * <p>A single scheduled task pings every stream, so an idle client no longer
+ * holds a thread. Streams whose write fails are dropped. Server-to-client
+ * notifications can be sent to the streams of one session or to all.</p>
+ *
+ * <p>The scheduler thread is shared with session sweeps and tool call
+ * heartbeats, so it never writes to a socket itself: pings and closes are
+ * handed to the writer executor. A stream that is still writing is not pinged
+ * again, and one whose write has been pending for longer than the write
+ * timeout is dropped, since its client stopped reading.</p>
+ */
+public class SseStreamRegistry {
+
+    private static final String NO_SESSION = "";
+
+    private final Map<SseStream, String> streams = new ConcurrentHashMap<>();
+    private final Executor writer;
+    private final long writeTimeoutMillis;
+    private final ScheduledFuture<?> pingTask;
+
+    public SseStreamRegistry(ScheduledExecutorService scheduler, Executor writer,
+                             long pingIntervalSeconds, long writeTimeoutSeconds) {
+        this.writer = writer;
+        this.writeTimeoutMillis = TimeUnit.SECONDS.toMillis(writeTimeoutSeconds);
+        this.pingTask = scheduler.scheduleWithFixedDelay(this::pingAll,
+                pingIntervalSeconds, pingIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    public void register(String sessionId, SseStream stream) {
+        streams.put(stream, sessionId != null ? sessionId : NO_SESSION);
+    }
+
+    public int size() {
+        return streams.size();
+    }
+
+    /**
+     * Returns true if the session has at least one open stream.
+     */
+    public boolean hasSession(String sessionId) {
+        return streams.containsValue(sessionId);
+    }
+
+    /**
+     * Sends a JSON-RPC notification to every stream of the given session.
+     *
+     * @return the number of streams that received it
+     */
+    public int sendToSession(String sessionId, JsonElement message) {
+        int delivered = 0;
+        for (Map.Entry<SseStream, String> entry : streams.entrySet()) {
+            if (entry.getValue().equals(sessionId)) {
+                delivered += deliver(entry.getKey(), message);
+            }
+        }
+        return delivered;
+    }
+
+    /**
+     * Sends a JSON-RPC notification to every open stream.
+     *
+     * @return the number of streams that received it
+     */
+    public int broadcast(JsonElement message) {
+        int delivered = 0;
+        for (SseStream stream : streams.keySet()) {
+            delivered += deliver(stream, message);
+        }
+        return delivered;
+    }
+
+    /**
+     * Closes the streams of a session, e.g. on DELETE /mcp.
+     */
+    public void closeSession(String sessionId) {
+        for (Map.Entry<SseStream, String> entry : streams.entrySet()) {
+            if (entry.getValue().equals(sessionId)) {
+                drop(entry.getKey());
+            }
+        }
+    }
+
+    public void closeAll() {
+        pingTask.cancel(false);
+        for (SseStream stream : streams.keySet()) {
+            drop(stream);
+        }
+    }
+
+    private int deliver(SseStream stream, JsonElement message) {
+        if (stream.sendMessage(message)) {
+            return 1;
+        }
+        drop(stream);
+        return 0;
+    }
+
+    private void pingAll() {
+        for (SseStream stream : streams.keySet()) {
+            if (stream.isStalled(writeTimeoutMillis)) {
+                drop(stream);
+            } else if (!stream.isWriting()) {
+                runOnWriter(() -> {
+                    if (!stream.sendComment("ping")) {
+                        drop(stream);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Removes a stream and closes it without blocking the caller: a pending
+     * write holds the stream's lock until the socket gives up.
+     */
+    private void drop(SseStream stream) {
+        streams.remove(stream);
+        stream.abort();
+        runOnWriter(stream::close);
+    }
+
+    private void runOnWriter(Runnable task) {
+        try {
+            writer.execute(task);
+        } catch (RejectedExecutionException e) {
+            // Server shutting down; nothing will read from the stream anymore
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.sap.adt.mcp.server;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.sap.adt.mcp.tools.McpTool;
+
+/**
+ * Registry of MCP tools, frozen into an immutable snapshot on every change.
+ *
+ * <p>Each snapshot holds a name index for tools/call and the tools/list
+ * result, built and serialized to UTF-8 once together with its ETag.
+ * Lookups never lock; only registration does.</p>
+ */
+public class ToolRegistry {
+
+    /**
+     * Immutable view of the registered tools.
+     */
+    public static final class Snapshot {
+        private final Map<String, McpTool> toolsByName;
+        private final JsonObject listResult;
+        private final byte[] listResultBytes;
+        private final String etag;
+
+        private Snapshot(Map<String, McpTool> toolsByName, Gson gson) {
+            this.toolsByName = Collections.unmodifiableMap(toolsByName);
+            this.listResult = buildListResult(toolsByName.values());
+            this.listResultBytes = gson.toJson(listResult).getBytes(StandardCharsets.UTF_8);
+            this.etag = "\"" + sha256Prefix(listResultBytes) + "\"";
+        }
+
+        public McpTool find(String name) {
+            return toolsByName.get(name);
+        }
+
+        public int size() {
+            return toolsByName.size();
+        }
+
+        public Collection<McpTool> tools() {
+            return toolsByName.values();
+        }
+
+        /**
+         * The tools/list result object. Shared, must not be modified.
+         */
+        public JsonObject listResult() {
+            return listResult;
+        }
+
+        /**
+         * The tools/list result serialized to UTF-8. Shared, must not be modified.
+         */
+        public byte[] listResultBytes() {
+            return listResultBytes;
+        }
+
+        public String etag() {
+            return etag;
+        }
+    }
+
+    private final Gson gson;
+    private final Runnable onChange;
+    private volatile Snapshot snapshot;
+
+    /**
+     * @param onChange called after every change, e.g. to send notifications/tools/list_changed
+     */
+    public ToolRegistry(Gson gson, Runnable onChange) {
+        this.gson = gson;
+        this.onChange = onChange;
+        this.snapshot = new Snapshot(new LinkedHashMap<>(), gson);
+    }
+
+    public Snapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Registers tools. A tool with the same name as a registered one replaces it.
+     */
+    public void register(List<McpTool> tools) {
+        update(toolsByName -> {
+            for (McpTool tool : tools) {
+                toolsByName.put(tool.getName(), tool);
+            }
+        });
+    }
+
+    public void remove(String name) {
+        update(toolsByName -> toolsByName.remove(name));
+    }
+
+    public void clear() {
+        update(Map::clear);
+    }
+
+    private void update(Consumer<Map<String, McpTool>> change) {
+        synchronized (this) {
+            Map<String, McpTool> toolsByName = new LinkedHashMap<>(snapshot.toolsByName);
+            change.accept(toolsByName);
+            if (toolsByName.equals(snapshot.toolsByName)) {
+                return;
+            }
+            snapshot = new Snapshot(toolsByName, gson);
+        }
+        if (onChange != null) {
+            onChange.run();
+        }
+    }
+
+    private static JsonObject buildListResult(Collection<McpTool> tools) {
+        JsonObject result = new JsonObject();
+        JsonArray toolsArray = new JsonArray();
+
+        for (McpTool tool : tools) {
+            JsonObject toolDef = new JsonObject();
+            toolDef.addProperty("name", tool.getName());
+            toolDef.addProperty("description", tool.getDescription());
+            toolDef.add("inputSchema", tool.getInputSchema());
+            toolsArray.add(toolDef);
+        }
+
+        result.add("tools", toolsArray);
+        return result;
+    }
+
+    private static String sha256Prefix(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+            StringBuilder hex = new StringBuilder();
+            for (int i = 0; i < 8; i++) {
+                hex.append(String.format("%02x", digest[i]));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
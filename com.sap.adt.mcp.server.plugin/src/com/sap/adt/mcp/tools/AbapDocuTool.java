@@ -1,10 +1,16 @@
 package com.sap.adt.mcp.tools;
 
-import java.net.http.HttpResponse;
+import java.io.IOException;
+import java.net.http.HttpTimeoutException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
-import com.sap.adt.mcp.sap.AdtRestClient;
+import com.sap.adt.mcp.log.McpLog;
+import com.sap.adt.mcp.sap.AdtCallScope;
+import com.sap.adt.mcp.sap.AdtSessionPool;
 import com.sap.adt.mcp.sap.AdtXmlParser;
 
 /**
@@ -14,8 +20,8 @@ public class AbapDocuTool extends AbstractMcpTool {
 
     public static final String NAME = "sap_abap_docu";
 
-    public AbapDocuTool(AdtRestClient client) {
-        super(client);
+    public AbapDocuTool(AdtSessionPool sessions) {
+        super(sessions);
     }
 
     @Override
@@ -59,8 +65,18 @@ public class AbapDocuTool extends AbstractMcpTool {
 
     @Override
     public String execute(JsonObject arguments) throws Exception {
+        return await(executeAsync(arguments, ToolContext.none())).toString();
+    }
+
+    /**
+     * Looks up the documentation as a chain of asynchronous requests, including
+     * the keyword-then-class and docu-then-metadata fallbacks.
+     */
+    @Override
+    public CompletableFuture<JsonElement> executeAsync(JsonObject arguments, ToolContext context) {
         String searchTerm = arguments.get("searchTerm").getAsString().toUpperCase().trim();
         String docuType = optString(arguments, "docuType");
+        AdtCallScope scope = context.getCallScope();
 
         JsonObject result = new JsonObject();
         result.addProperty("searchTerm", searchTerm);
@@ -71,14 +87,14 @@ public class AbapDocuTool extends AbstractMcpTool {
         }
         result.addProperty("docuType", docuType);
 
-        String documentation = null;
+        CompletableFuture<String> documentation;
 
         switch (docuType.toLowerCase()) {
             case "keyword":
                 documentation = fetchKeywordDocu(searchTerm);
                 break;
             case "class":
-                documentation = fetchClassDocu(searchTerm);
+                documentation = fetchClassDocu(searchTerm, scope);
                 break;
             case "function":
                 documentation = fetchFunctionDocu(searchTerm);
@@ -88,21 +104,24 @@ public class AbapDocuTool extends AbstractMcpTool {
                 break;
             default:
                 // Try keyword first, then class
-                documentation = fetchKeywordDocu(searchTerm);
-                if (documentation == null || documentation.isEmpty()) {
-                    documentation = fetchClassDocu(searchTerm);
-                }
-        }
-
-        if (documentation != null && !documentation.isEmpty()) {
-            result.addProperty("found", true);
-            result.addProperty("documentation", documentation);
-        } else {
-            result.addProperty("found", false);
-            result.addProperty("message", "No documentation found for '" + searchTerm + "'");
+                documentation = fetchKeywordDocu(searchTerm).thenCompose(docu -> {
+                    if (docu == null || docu.isEmpty()) {
+                        return scope.call(() -> fetchClassDocu(searchTerm, scope));
+                    }
+                    return CompletableFuture.completedFuture(docu);
+                });
         }
 
-        return result.toString();
+        return documentation.thenApply(docu -> {
+            if (docu != null && !docu.isEmpty()) {
+                result.addProperty("found", true);
+                result.addProperty("documentation", docu);
+            } else {
+                result.addProperty("found", false);
+                result.addProperty("message", "No documentation found for '" + searchTerm + "'");
+            }
+            return result;
+        });
     }
 
     private String detectDocuType(String term) {
@@ -147,77 +166,75 @@ public class AbapDocuTool extends AbstractMcpTool {
         return false;
     }
 
-    private String fetchKeywordDocu(String keyword) {
-        try {
-            // ABAP keyword documentation endpoint
-            String path = "/sap/bc/adt/docu/abap/langu?object=" + urlEncode(keyword) + "&language=EN";
-            HttpResponse<String> response = client.get(path, "text/html, text/plain, application/xml");
-
-            if (response.statusCode() == 200 && response.body() != null) {
-                return AdtXmlParser.parseAbapDocu(response.body());
-            }
-        } catch (Exception e) {
-            System.err.println("fetchKeywordDocu failed: " + e.getMessage());
-        }
-        return null;
+    private CompletableFuture<String> fetchKeywordDocu(String keyword) {
+        // ABAP keyword documentation endpoint
+        String path = "/sap/bc/adt/docu/abap/langu?object=" + urlEncode(keyword) + "&language=EN";
+        return fetchDocu(path)
+                .exceptionally(e -> notFound("fetchKeywordDocu", e));
     }
 
-    private String fetchClassDocu(String className) {
-        try {
-            // Try to get class documentation via ADT
-            String path = "/sap/bc/adt/docu/abap/langu?object=" + urlEncode(className)
-                    + "&type=CLAS&language=EN";
-            HttpResponse<String> response = client.get(path, "text/html, text/plain, application/xml");
-
-            if (response.statusCode() == 200 && response.body() != null) {
-                String docu = AdtXmlParser.parseAbapDocu(response.body());
-                if (docu != null && !docu.isEmpty()) {
-                    return docu;
-                }
-            }
-
-            // Fallback: get class metadata
-            path = "/sap/bc/adt/oo/classes/" + urlEncode(className.toLowerCase());
-            response = client.get(path, "application/vnd.sap.adt.oo.classes.v4+xml, application/xml");
-
-            if (response.statusCode() == 200 && response.body() != null) {
-                JsonObject structure = AdtXmlParser.parseObjectStructure(response.body());
-                return formatClassStructure(className, structure);
-            }
-        } catch (Exception e) {
-            System.err.println("fetchClassDocu failed: " + e.getMessage());
-        }
-        return null;
+    private CompletableFuture<String> fetchClassDocu(String className, AdtCallScope scope) {
+        // Try to get class documentation via ADT
+        String path = "/sap/bc/adt/docu/abap/langu?object=" + urlEncode(className)
+                + "&type=CLAS&language=EN";
+        return fetchDocu(path)
+                .thenCompose(docu -> {
+                    if (docu != null && !docu.isEmpty()) {
+                        return CompletableFuture.completedFuture(docu);
+                    }
+
+                    // Fallback: get class metadata
+                    String classPath = "/sap/bc/adt/oo/classes/" + urlEncode(className.toLowerCase());
+                    return scope.call(() -> client().getAsync(classPath,
+                                    "application/vnd.sap.adt.oo.classes.v4+xml, application/xml"))
+                            .thenApply(response -> {
+                                if (response.statusCode() == 200 && response.body() != null) {
+                                    JsonObject structure = AdtXmlParser.parseObjectStructure(response.body());
+                                    return formatClassStructure(className, structure);
+                                }
+                                return null;
+                            });
+                })
+                .exceptionally(e -> notFound("fetchClassDocu", e));
     }
 
-    private String fetchFunctionDocu(String funcName) {
-        try {
-            String path = "/sap/bc/adt/docu/abap/langu?object=" + urlEncode(funcName)
-                    + "&type=FUNC&language=EN";
-            HttpResponse<String> response = client.get(path, "text/html, text/plain, application/xml");
+    private CompletableFuture<String> fetchFunctionDocu(String funcName) {
+        String path = "/sap/bc/adt/docu/abap/langu?object=" + urlEncode(funcName)
+                + "&type=FUNC&language=EN";
+        return fetchDocu(path)
+                .exceptionally(e -> notFound("fetchFunctionDocu", e));
+    }
 
-            if (response.statusCode() == 200 && response.body() != null) {
-                return AdtXmlParser.parseAbapDocu(response.body());
-            }
-        } catch (Exception e) {
-            System.err.println("fetchFunctionDocu failed: " + e.getMessage());
-        }
-        return null;
+    private CompletableFuture<String> fetchTypeDocu(String typeName) {
+        String path = "/sap/bc/adt/docu/abap/langu?object=" + urlEncode(typeName)
+                + "&type=TYPE&language=EN";
+        return fetchDocu(path)
+                .exceptionally(e -> notFound("fetchTypeDocu", e));
     }
 
-    private String fetchTypeDocu(String typeName) {
-        try {
-            String path = "/sap/bc/adt/docu/abap/langu?object=" + urlEncode(typeName)
-                    + "&type=TYPE&language=EN";
-            HttpResponse<String> response = client.get(path, "text/html, text/plain, application/xml");
+    private CompletableFuture<String> fetchDocu(String path) {
+        return client().getAsync(path, "text/html, text/plain, application/xml")
+                .thenApply(response -> {
+                    if (response.statusCode() == 200 && response.body() != null) {
+                        return AdtXmlParser.parseAbapDocu(response.body());
+                    }
+                    return null;
+                });
+    }
 
-            if (response.statusCode() == 200 && response.body() != null) {
-                return AdtXmlParser.parseAbapDocu(response.body());
-            }
-        } catch (Exception e) {
-            System.err.println("fetchTypeDocu failed: " + e.getMessage());
+    /**
+     * Treats a failed lookup as "no documentation" when SAP could not deliver
+     * it. Cancellation, timeouts including an exhausted time budget, and any
+     * other error are rethrown, so they end the call instead of being reported
+     * as a miss.
+     */
+    private static String notFound(String lookup, Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof IOException && !(cause instanceof HttpTimeoutException)) {
+            McpLog.info(lookup + " failed: " + cause.getMessage());
+            return null;
         }
-        return null;
+        throw e instanceof CompletionException ? (CompletionException) e : new CompletionException(cause);
     }
 
     private String formatClassStructure(String className, JsonObject structure) {
@@ -3,25 +3,63 @@ package com.sap.adt.mcp.tools;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
 import com.google.gson.JsonObject;
+import com.sap.adt.mcp.sap.AdtLockManager;
 import com.sap.adt.mcp.sap.AdtRestClient;
+import com.sap.adt.mcp.sap.AdtSessionPool;
 
 /**
  * Base class for all SAP ADT MCP tools.
  */
 public abstract class AbstractMcpTool implements McpTool {
 
-    protected final AdtRestClient client;
+    protected final AdtSessionPool sessions;
 
-    protected AbstractMcpTool(AdtRestClient client) {
-        this.client = client;
+    protected AbstractMcpTool(AdtSessionPool sessions) {
+        this.sessions = sessions;
+    }
+
+    /**
+     * Returns the session for a stateless request. Stateful sequences lease
+     * one from {@link #sessions} instead.
+     */
+    protected AdtRestClient client() {
+        return sessions.next();
     }
 
     protected static final Map<String, String> STATEFUL_HEADERS =
             Map.of(AdtRestClient.SESSION_TYPE_HEADER, "stateful");
 
+    private static final String LOCK_RELEASE_ATTRIBUTE = "adt.locks.releaseOnClose";
+
+    /**
+     * Returns the MCP session id a call runs in, used as the owner of the locks
+     * it takes, or null outside of a session.
+     */
+    protected static String ownerOf(ToolContext context) {
+        return context != null && context.getSession() != null ? context.getSession().getId() : null;
+    }
+
+    /**
+     * Makes sure the locks a session takes are released when the session is
+     * closed or evicted, so they do not outlive the agent that took them.
+     */
+    protected static void releaseLocksOnClose(ToolContext context, AdtLockManager locks) {
+        ToolSession session = context != null ? context.getSession() : null;
+        if (session == null) {
+            return;
+        }
+        session.computeAttributeIfAbsent(LOCK_RELEASE_ATTRIBUTE, key -> {
+            // Close listeners run on the scheduler or UI thread, keep SAP off them
+            session.addCloseListener(() -> locks.releaseOwnerLater(session.getId()));
+            return Boolean.TRUE;
+        });
+    }
+
     protected String optString(JsonObject obj, String key) {
         if (obj == null || !obj.has(key) || obj.get(key).isJsonNull()) {
             return null;
@@ -40,6 +78,17 @@ public abstract class AbstractMcpTool implements McpTool {
         }
     }
 
+    protected boolean optBoolean(JsonObject obj, String key, boolean defaultValue) {
+        if (obj == null || !obj.has(key) || obj.get(key).isJsonNull()) {
+            return defaultValue;
+        }
+        try {
+            return obj.get(key).getAsBoolean();
+        } catch (Exception e) {
+            return defaultValue;
+        }
+    }
+
     protected String resolveSourceUrlArg(JsonObject arguments, String urlParamName) {
         String type = optString(arguments, "objectType");
         String name = optString(arguments, "objectName");
@@ -60,6 +109,28 @@ public abstract class AbstractMcpTool implements McpTool {
         return optString(arguments, urlParamName);
     }
 
+    /**
+     * Waits for an asynchronous result and rethrows its failure unwrapped. Lets
+     * tools built on {@link #executeAsync} keep the blocking {@link #execute}.
+     */
+    protected static <T> T await(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        }
+    }
+
     protected String urlEncode(String value) {
         if (value == null) return "";
         return URLEncoder.encode(value, StandardCharsets.UTF_8);
@@ -4,7 +4,7 @@ import java.net.http.HttpResponse;
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
-import com.sap.adt.mcp.sap.AdtRestClient;
+import com.sap.adt.mcp.sap.AdtSessionPool;
 import com.sap.adt.mcp.sap.AdtXmlParser;
 
 /**
@@ -14,8 +14,8 @@ public class ActivateTool extends AbstractMcpTool {
 
     public static final String NAME = "sap_activate";
 
-    public ActivateTool(AdtRestClient client) {
-        super(client);
+    public ActivateTool(AdtSessionPool sessions) {
+        super(sessions);
     }
 
     @Override
@@ -60,7 +60,7 @@ public class ActivateTool extends AbstractMcpTool {
                 + "\" adtcore:name=\"" + escapeXml(objectName) + "\"/>"
                 + "</adtcore:objectReferences>";
 
-        HttpResponse<String> response = client.post(
+        HttpResponse<String> response = client().post(
                 "/sap/bc/adt/activation?method=activate&preauditRequested=true",
                 activateXml,
                 "application/xml",
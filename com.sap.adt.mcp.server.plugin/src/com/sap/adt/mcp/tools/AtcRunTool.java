@@ -1,10 +1,14 @@
 package com.sap.adt.mcp.tools;
 
 import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
 
 import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.sap.adt.mcp.sap.AdtCallScope;
 import com.sap.adt.mcp.sap.AdtRestClient;
+import com.sap.adt.mcp.sap.AdtSessionPool;
 import com.sap.adt.mcp.sap.AdtXmlParser;
 
 /**
@@ -14,8 +18,8 @@ public class AtcRunTool extends AbstractMcpTool {
 
     public static final String NAME = "sap_atc_run";
 
-    public AtcRunTool(AdtRestClient client) {
-        super(client);
+    public AtcRunTool(AdtSessionPool sessions) {
+        super(sessions);
     }
 
     @Override
@@ -48,57 +52,80 @@ public class AtcRunTool extends AbstractMcpTool {
 
     @Override
     public String execute(JsonObject arguments) throws Exception {
+        return execute(arguments, ToolContext.none());
+    }
+
+    @Override
+    public String execute(JsonObject arguments, ToolContext context) throws Exception {
+        return await(executeAsync(arguments, context)).toString();
+    }
+
+    /**
+     * Runs worklist creation, the ATC run and the findings fetch as one chain of
+     * asynchronous requests; no thread waits between the steps.
+     */
+    @Override
+    public CompletableFuture<JsonElement> executeAsync(JsonObject arguments, ToolContext context) {
         String objectUrl = resolveObjectUrlArg(arguments, "objectUrl");
         if (objectUrl == null) {
-            throw new IllegalArgumentException("Provide objectType + objectName.");
+            return CompletableFuture.failedFuture(
+                    new IllegalArgumentException("Provide objectType + objectName."));
         }
 
         String variant = "DEFAULT";
         int maxResults = 100;
+        AdtCallScope scope = context.getCallScope();
+        // Keep the worklist, the run and the fetch on one SAP session
+        AdtRestClient client = client();
 
         // Create worklist
-        String worklistId;
-        try {
-            HttpResponse<String> wlResponse = client.post(
-                    "/sap/bc/adt/atc/worklists?checkVariant=" + urlEncode(variant),
-                    "", "application/xml", "text/plain");
-            worklistId = wlResponse.body() != null ? wlResponse.body().trim() : variant;
-        } catch (Exception e) {
-            worklistId = variant;
-        }
-
-        if (worklistId.isEmpty()) worklistId = variant;
-
-        // Run ATC
-        String runXml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
-                + "<atc:run maximumVerdicts=\"" + maxResults + "\" xmlns:atc=\"http://www.sap.com/adt/atc\">"
-                + "<objectSets xmlns:adtcore=\"http://www.sap.com/adt/core\">"
-                + "<objectSet kind=\"inclusive\">"
-                + "<adtcore:objectReferences>"
-                + "<adtcore:objectReference adtcore:uri=\"" + escapeXml(objectUrl) + "\"/>"
-                + "</adtcore:objectReferences>"
-                + "</objectSet>"
-                + "</objectSets>"
-                + "</atc:run>";
-
-        HttpResponse<String> runResponse = client.post(
-                "/sap/bc/adt/atc/runs?worklistId=" + urlEncode(worklistId),
-                runXml, "application/xml", "application/xml");
-
-        // Extract worklist ID from response
-        String runWorklistId = extractWorklistId(runResponse);
-        if (runWorklistId != null && !runWorklistId.isEmpty()) {
-            worklistId = runWorklistId;
-        }
-
-        // Fetch results
-        HttpResponse<String> worklistResponse = client.get(
-                "/sap/bc/adt/atc/worklists/" + urlEncode(worklistId),
-                "application/atc.worklist.v1+xml");
-
-        JsonObject worklist = AdtXmlParser.parseAtcWorklist(worklistResponse.body());
-        worklist.addProperty("worklistId", worklistId);
-        return worklist.toString();
+        context.reportProgress("Creating ATC worklist");
+        return client.postAsync(
+                        "/sap/bc/adt/atc/worklists?checkVariant=" + urlEncode(variant),
+                        "", "application/xml", "text/plain")
+                .handle((wlResponse, error) -> {
+                    String worklistId = error == null && wlResponse.body() != null
+                            ? wlResponse.body().trim()
+                            : variant;
+                    return worklistId.isEmpty() ? variant : worklistId;
+                })
+                .thenCompose(worklistId -> {
+                    // Run ATC
+                    context.reportProgress("Running ATC checks with variant " + variant);
+                    String runXml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+                            + "<atc:run maximumVerdicts=\"" + maxResults + "\" xmlns:atc=\"http://www.sap.com/adt/atc\">"
+                            + "<objectSets xmlns:adtcore=\"http://www.sap.com/adt/core\">"
+                            + "<objectSet kind=\"inclusive\">"
+                            + "<adtcore:objectReferences>"
+                            + "<adtcore:objectReference adtcore:uri=\"" + escapeXml(objectUrl) + "\"/>"
+                            + "</adtcore:objectReferences>"
+                            + "</objectSet>"
+                            + "</objectSets>"
+                            + "</atc:run>";
+
+                    return scope.call(() -> client.postAsync(
+                                    "/sap/bc/adt/atc/runs?worklistId=" + urlEncode(worklistId),
+                                    runXml, "application/xml", "application/xml"))
+                            .thenApply(runResponse -> {
+                                // Extract worklist ID from response
+                                String runWorklistId = extractWorklistId(runResponse);
+                                return runWorklistId != null && !runWorklistId.isEmpty()
+                                        ? runWorklistId
+                                        : worklistId;
+                            });
+                })
+                .thenCompose(worklistId -> {
+                    // Fetch results
+                    context.reportProgress("Fetching ATC findings");
+                    return scope.call(() -> client.getAsync(
+                                    "/sap/bc/adt/atc/worklists/" + urlEncode(worklistId),
+                                    "application/atc.worklist.v1+xml"))
+                            .thenApply(worklistResponse -> {
+                                JsonObject worklist = AdtXmlParser.parseAtcWorklist(worklistResponse.body());
+                                worklist.addProperty("worklistId", worklistId);
+                                return worklist;
+                            });
+                });
     }
 
     private String extractWorklistId(HttpResponse<String> response) {
@@ -6,7 +6,7 @@ import java.util.Map;
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
-import com.sap.adt.mcp.sap.AdtRestClient;
+import com.sap.adt.mcp.sap.AdtSessionPool;
 
 /**
  * Tool: sap_create_object -- Create new ABAP objects.
@@ -30,8 +30,8 @@ public class CreateObjectTool extends AbstractMcpTool {
         TYPE_CONTENT_TYPE_MAP.put("FUGR/F", "application/vnd.sap.adt.functions.groups.v3+xml");
     }
 
-    public CreateObjectTool(AdtRestClient client) {
-        super(client);
+    public CreateObjectTool(AdtSessionPool sessions) {
+        super(sessions);
     }
 
     @Override
@@ -111,7 +111,7 @@ public class CreateObjectTool extends AbstractMcpTool {
             path = path + "?corrNr=" + urlEncode(transport);
         }
 
-        HttpResponse<String> response = client.post(path, xmlBody, contentType, contentType + ", application/xml");
+        HttpResponse<String> response = client().post(path, xmlBody, contentType, contentType + ", application/xml");
 
         JsonObject output = new JsonObject();
         output.addProperty("status", "created");
@@ -4,7 +4,7 @@ import java.net.http.HttpResponse;
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
-import com.sap.adt.mcp.sap.AdtRestClient;
+import com.sap.adt.mcp.sap.AdtSessionPool;
 
 /**
  * Tool: sap_get_source -- Retrieve ABAP source code.
@@ -13,8 +13,11 @@ public class GetSourceTool extends AbstractMcpTool {
 
     public static final String NAME = "sap_get_source";
 
-    public GetSourceTool(AdtRestClient client) {
-        super(client);
+    private final SourceHashCache sourceHashes;
+
+    public GetSourceTool(AdtSessionPool sessions, SourceHashCache sourceHashes) {
+        super(sessions);
+        this.sourceHashes = sourceHashes;
     }
 
     @Override
@@ -52,19 +55,35 @@ public class GetSourceTool extends AbstractMcpTool {
 
     @Override
     public String execute(JsonObject arguments) throws Exception {
+        return execute(arguments, ToolContext.none());
+    }
+
+    @Override
+    public String execute(JsonObject arguments, ToolContext context) throws Exception {
         String version = optString(arguments, "version");
 
         String path = resolveSourceUrlArg(arguments, "objectSourceUrl");
         if (path == null) {
             throw new IllegalArgumentException("Provide either objectType + objectName, or objectSourceUrl.");
         }
+        // Same URL as sap_set_source, so both use the same cached hash
+        path = ensureSourceUrl(path);
 
+        String sourceUrl = path;
         if (version != null && !version.isEmpty()) {
             String separator = path.contains("?") ? "&" : "?";
             path = path + separator + "version=" + urlEncode(version);
         }
 
-        HttpResponse<String> response = client.get(path, "text/plain");
-        return response.body();
+        HttpResponse<String> response = client().get(path, "text/plain");
+        String source = response.body();
+        // Lets sap_set_source skip writing this source back unchanged, and
+        // check that a patch of this session refers to the version read here
+        String hash = sourceHashes.recordRead(sourceUrl, version,
+                isFunctionModuleUrl(sourceUrl) ? sanitizeFmSource(source) : source);
+        if (!"active".equalsIgnoreCase(version)) {
+            SourceHashCache.recordSessionBase(context.getSession(), sourceUrl, hash);
+        }
+        return source;
     }
 }
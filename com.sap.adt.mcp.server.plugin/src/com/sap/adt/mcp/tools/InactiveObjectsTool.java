@@ -3,7 +3,7 @@ package com.sap.adt.mcp.tools;
 import java.net.http.HttpResponse;
 
 import com.google.gson.JsonObject;
-import com.sap.adt.mcp.sap.AdtRestClient;
+import com.sap.adt.mcp.sap.AdtSessionPool;
 import com.sap.adt.mcp.sap.AdtXmlParser;
 
 /**
@@ -13,8 +13,8 @@ public class InactiveObjectsTool extends AbstractMcpTool {
 
     public static final String NAME = "sap_inactive_objects";
 
-    public InactiveObjectsTool(AdtRestClient client) {
-        super(client);
+    public InactiveObjectsTool(AdtSessionPool sessions) {
+        super(sessions);
     }
 
     @Override
@@ -37,7 +37,7 @@ public class InactiveObjectsTool extends AbstractMcpTool {
 
     @Override
     public String execute(JsonObject arguments) throws Exception {
-        HttpResponse<String> response = client.get(
+        HttpResponse<String> response = client().get(
                 "/sap/bc/adt/activation/inactiveobjects",
                 "application/vnd.sap.adt.inactivectsobjects.v1+xml");
 
@@ -1,21 +1,26 @@
 package com.sap.adt.mcp.tools;
 
-import java.net.http.HttpResponse;
-
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
-import com.sap.adt.mcp.sap.AdtRestClient;
-import com.sap.adt.mcp.sap.AdtXmlParser;
+import com.sap.adt.mcp.sap.AdtLockManager;
+import com.sap.adt.mcp.sap.AdtSessionPool;
 
 /**
  * Tool: sap_lock -- Lock an ABAP object for editing.
+ *
+ * <p>The lock is taken through the {@link AdtLockManager}, which keeps it on a
+ * SAP session of its own until sap_unlock. Locks not used within the lease
+ * period, or left behind by a closed MCP session, are released automatically.</p>
  */
 public class LockTool extends AbstractMcpTool {
 
     public static final String NAME = "sap_lock";
 
-    public LockTool(AdtRestClient client) {
-        super(client);
+    private final AdtLockManager locks;
+
+    public LockTool(AdtSessionPool sessions, AdtLockManager locks) {
+        super(sessions);
+        this.locks = locks;
     }
 
     @Override
@@ -25,7 +30,8 @@ public class LockTool extends AbstractMcpTool {
 
     @Override
     public String getDescription() {
-        return "Lock an ABAP object for editing. Returns the lock handle.";
+        return "Lock an ABAP object for editing. Returns the lock handle. The lock is released "
+                + "automatically when its lease expires; call sap_lock again to renew it.";
     }
 
     @Override
@@ -48,24 +54,26 @@ public class LockTool extends AbstractMcpTool {
 
     @Override
     public String execute(JsonObject arguments) throws Exception {
+        return execute(arguments, ToolContext.none());
+    }
+
+    @Override
+    public String execute(JsonObject arguments, ToolContext context) throws Exception {
         String objectUrl = resolveObjectUrlArg(arguments, "objectUrl");
         if (objectUrl == null) {
             throw new IllegalArgumentException("Provide objectType + objectName.");
         }
 
-        String lockPath = objectUrl + "?_action=LOCK&accessMode=MODIFY";
-        HttpResponse<String> lockResp = client.postWithHeaders(lockPath, "",
-                "application/*",
-                "application/vnd.sap.as+xml;charset=UTF-8;dataname=com.sap.adt.lock.result;q=0.8, "
-                + "application/vnd.sap.as+xml;charset=UTF-8;dataname=com.sap.adt.lock.result2;q=0.9",
-                STATEFUL_HEADERS);
-
-        String lockHandle = AdtXmlParser.extractLockHandle(lockResp.body());
+        AdtLockManager.Lock lock = locks.lock(objectUrl, ownerOf(context));
+        releaseLocksOnClose(context, locks);
+        String lockHandle = lock.getHandle();
 
         JsonObject output = new JsonObject();
         output.addProperty("success", lockHandle != null && !lockHandle.isEmpty());
         output.addProperty("lockHandle", lockHandle);
         output.addProperty("objectUrl", objectUrl);
+        output.addProperty("leaseExpiresInSeconds",
+                Math.max(0, (lock.getExpiresAt() - System.currentTimeMillis()) / 1000));
 
         return output.toString();
     }
@@ -1,6 +1,10 @@
 package com.sap.adt.mcp.tools;
 
+import java.util.concurrent.CompletableFuture;
+
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
 
 /**
  * Interface for tools exposed via the MCP server.
@@ -35,4 +39,35 @@ public interface McpTool {
      * @throws Exception if execution fails
      */
     String execute(JsonObject arguments) throws Exception;
+
+    /**
+     * Executes the tool with a per-call context. Tools that report progress
+     * override this; the default ignores the context.
+     *
+     * @param arguments the input parameters as a JSON object
+     * @param context the per-call context
+     * @return the result as a string (can be JSON or plain text)
+     * @throws Exception if execution fails
+     */
+    default String execute(JsonObject arguments, ToolContext context) throws Exception {
+        return execute(arguments);
+    }
+
+    /**
+     * Executes the tool without holding a thread while SAP requests are in flight.
+     * The server calls this method; tools built from asynchronous client calls
+     * override it. The default adapts the blocking {@link #execute(JsonObject, ToolContext)}
+     * and runs it on the calling thread.
+     *
+     * @param arguments the input parameters as a JSON object
+     * @param context the per-call context
+     * @return the result: a JSON string primitive for plain text, or any JSON value
+     */
+    default CompletableFuture<JsonElement> executeAsync(JsonObject arguments, ToolContext context) {
+        try {
+            return CompletableFuture.completedFuture(new JsonPrimitive(execute(arguments, context)));
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
 }
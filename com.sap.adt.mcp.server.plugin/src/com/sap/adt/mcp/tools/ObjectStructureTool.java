@@ -3,7 +3,7 @@ package com.sap.adt.mcp.tools;
 import java.net.http.HttpResponse;
 
 import com.google.gson.JsonObject;
-import com.sap.adt.mcp.sap.AdtRestClient;
+import com.sap.adt.mcp.sap.AdtSessionPool;
 import com.sap.adt.mcp.sap.AdtXmlParser;
 
 /**
@@ -13,8 +13,8 @@ public class ObjectStructureTool extends AbstractMcpTool {
 
     public static final String NAME = "sap_object_structure";
 
-    public ObjectStructureTool(AdtRestClient client) {
-        super(client);
+    public ObjectStructureTool(AdtSessionPool sessions) {
+        super(sessions);
     }
 
     @Override
@@ -47,7 +47,7 @@ public class ObjectStructureTool extends AbstractMcpTool {
             throw new IllegalArgumentException("Provide objectType + objectName.");
         }
 
-        HttpResponse<String> response = client.get(objectUrl, "application/*");
+        HttpResponse<String> response = client().get(objectUrl, "application/*");
         JsonObject structure = AdtXmlParser.parseObjectStructure(response.body());
         return structure.toString();
     }
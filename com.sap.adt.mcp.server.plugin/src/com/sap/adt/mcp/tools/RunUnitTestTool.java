@@ -3,7 +3,7 @@ package com.sap.adt.mcp.tools;
 import java.net.http.HttpResponse;
 
 import com.google.gson.JsonObject;
-import com.sap.adt.mcp.sap.AdtRestClient;
+import com.sap.adt.mcp.sap.AdtSessionPool;
 import com.sap.adt.mcp.sap.AdtXmlParser;
 
 /**
@@ -13,8 +13,8 @@ public class RunUnitTestTool extends AbstractMcpTool {
 
     public static final String NAME = "sap_run_unit_test";
 
-    public RunUnitTestTool(AdtRestClient client) {
-        super(client);
+    public RunUnitTestTool(AdtSessionPool sessions) {
+        super(sessions);
     }
 
     @Override
@@ -42,6 +42,11 @@ public class RunUnitTestTool extends AbstractMcpTool {
 
     @Override
     public String execute(JsonObject arguments) throws Exception {
+        return execute(arguments, ToolContext.none());
+    }
+
+    @Override
+    public String execute(JsonObject arguments, ToolContext context) throws Exception {
         String objectUrl = resolveObjectUrlArg(arguments, "objectUrl");
         if (objectUrl == null) {
             throw new IllegalArgumentException("Provide objectType + objectName.");
@@ -66,13 +71,15 @@ public class RunUnitTestTool extends AbstractMcpTool {
                 + "</adtcore:objectSets>"
                 + "</aunit:runConfiguration>";
 
-        HttpResponse<String> response = client.post("/sap/bc/adt/abapunit/testruns",
+        context.reportProgress("Running ABAP Unit tests");
+        HttpResponse<String> response = client().post("/sap/bc/adt/abapunit/testruns",
                 xmlBody, "application/*", "application/*");
 
         if (response.statusCode() >= 400) {
             throw new RuntimeException("AUnit run failed (HTTP " + response.statusCode() + "): " + response.body());
         }
 
+        context.reportProgress("Evaluating ABAP Unit results");
         JsonObject result = AdtXmlParser.parseUnitTestResults(response.body());
         return result.toString();
     }
@@ -4,7 +4,7 @@ import java.net.http.HttpResponse;
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
-import com.sap.adt.mcp.sap.AdtRestClient;
+import com.sap.adt.mcp.sap.AdtSessionPool;
 import com.sap.adt.mcp.sap.AdtXmlParser;
 
 /**
@@ -14,8 +14,8 @@ public class SearchObjectTool extends AbstractMcpTool {
 
     public static final String NAME = "sap_search_object";
 
-    public SearchObjectTool(AdtRestClient client) {
-        super(client);
+    public SearchObjectTool(AdtSessionPool sessions) {
+        super(sessions);
     }
 
     @Override
@@ -75,7 +75,7 @@ public class SearchObjectTool extends AbstractMcpTool {
             path.append("&objectType=").append(urlEncode(objType));
         }
 
-        HttpResponse<String> response = client.get(path.toString(), "application/*");
+        HttpResponse<String> response = client().get(path.toString(), "application/*");
         JsonArray results = AdtXmlParser.parseSearchResults(response.body());
 
         JsonObject output = new JsonObject();
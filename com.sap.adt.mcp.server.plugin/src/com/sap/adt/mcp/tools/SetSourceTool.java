@@ -4,8 +4,9 @@ import java.net.http.HttpResponse;
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
+import com.sap.adt.mcp.sap.AdtLockManager;
 import com.sap.adt.mcp.sap.AdtRestClient;
-import com.sap.adt.mcp.sap.AdtXmlParser;
+import com.sap.adt.mcp.sap.AdtSessionPool;
 
 /**
  * Tool: sap_set_source -- Write ABAP source code.
@@ -14,8 +15,13 @@ public class SetSourceTool extends AbstractMcpTool {
 
     public static final String NAME = "sap_set_source";
 
-    public SetSourceTool(AdtRestClient client) {
-        super(client);
+    private final AdtLockManager locks;
+    private final SourceHashCache sourceHashes;
+
+    public SetSourceTool(AdtSessionPool sessions, AdtLockManager locks, SourceHashCache sourceHashes) {
+        super(sessions);
+        this.locks = locks;
+        this.sourceHashes = sourceHashes;
     }
 
     @Override
@@ -25,7 +31,12 @@ public class SetSourceTool extends AbstractMcpTool {
 
     @Override
     public String getDescription() {
-        return "Write ABAP source code to existing object. Locks, writes, unlocks, and activates automatically.";
+        return "Write ABAP source code to existing object. Locks, writes, unlocks, and activates automatically. "
+                + "The lock is kept briefly after a write, so follow-up writes to the same object are faster. "
+                + "Source identical to the last version read or written is not written again. "
+                + "For small changes to a large object, send a unified diff (patch) or line-range "
+                + "replacements (edits) against the version this session last read with sap_get_source "
+                + "or wrote, instead of source.";
     }
 
     @Override
@@ -34,20 +45,54 @@ public class SetSourceTool extends AbstractMcpTool {
         sourceProp.addProperty("type", "string");
         sourceProp.addProperty("description", "The complete ABAP source code to write");
 
+        JsonObject patchProp = new JsonObject();
+        patchProp.addProperty("type", "string");
+        patchProp.addProperty("description", "Unified diff against the current source, instead of source");
+
+        JsonObject editProperties = new JsonObject();
+        JsonObject startLineProp = new JsonObject();
+        startLineProp.addProperty("type", "integer");
+        startLineProp.addProperty("description", "First line to replace (1-based)");
+        editProperties.add("startLine", startLineProp);
+        JsonObject endLineProp = new JsonObject();
+        endLineProp.addProperty("type", "integer");
+        endLineProp.addProperty("description", "Last line to replace, inclusive; startLine - 1 inserts before startLine");
+        editProperties.add("endLine", endLineProp);
+        JsonObject textProp = new JsonObject();
+        textProp.addProperty("type", "string");
+        textProp.addProperty("description", "New lines; empty deletes the range");
+        editProperties.add("text", textProp);
+        JsonObject editItem = new JsonObject();
+        editItem.addProperty("type", "object");
+        editItem.add("properties", editProperties);
+
+        JsonObject editsProp = new JsonObject();
+        editsProp.addProperty("type", "array");
+        editsProp.addProperty("description",
+                "Line-range replacements against the source this session last read with sap_get_source, "
+                + "instead of source");
+        editsProp.add("items", editItem);
+
         JsonObject transportProp = new JsonObject();
         transportProp.addProperty("type", "string");
         transportProp.addProperty("description", "Optional transport request number (e.g. 'DEVK900123')");
 
+        JsonObject forceProp = new JsonObject();
+        forceProp.addProperty("type", "boolean");
+        forceProp.addProperty("description", "Write even if the source looks unchanged (default false)");
+
         JsonObject properties = new JsonObject();
         properties.add("objectType", AdtUrlResolver.buildTypeProperty());
         properties.add("objectName", AdtUrlResolver.buildNameProperty());
         properties.add("source", sourceProp);
+        properties.add("patch", patchProp);
+        properties.add("edits", editsProp);
         properties.add("transport", transportProp);
+        properties.add("force", forceProp);
 
         JsonArray required = new JsonArray();
         required.add("objectType");
         required.add("objectName");
-        required.add("source");
 
         JsonObject schema = new JsonObject();
         schema.addProperty("type", "object");
@@ -59,32 +104,118 @@ public class SetSourceTool extends AbstractMcpTool {
 
     @Override
     public String execute(JsonObject arguments) throws Exception {
+        return execute(arguments, ToolContext.none());
+    }
+
+    @Override
+    public String execute(JsonObject arguments, ToolContext context) throws Exception {
         String objectSourceUrl = resolveSourceUrlArg(arguments, "objectSourceUrl");
         if (objectSourceUrl == null) {
             throw new IllegalArgumentException("Provide either objectType + objectName, or objectSourceUrl.");
         }
         objectSourceUrl = ensureSourceUrl(objectSourceUrl);
-        String source = arguments.get("source").getAsString();
+        String source = optString(arguments, "source");
+        String patch = optString(arguments, "patch");
+        JsonArray edits = arguments.has("edits") && arguments.get("edits").isJsonArray()
+                ? arguments.getAsJsonArray("edits")
+                : null;
+        if ((source != null ? 1 : 0) + (patch != null ? 1 : 0) + (edits != null ? 1 : 0) != 1) {
+            throw new IllegalArgumentException("Provide exactly one of source, patch or edits.");
+        }
+        ToolSession session = context != null ? context.getSession() : null;
+        if (source == null) {
+            source = applyPatch(objectSourceUrl, patch, edits, session);
+        }
         String transport = optString(arguments, "transport");
 
         if (isFunctionModuleUrl(objectSourceUrl)) {
             source = sanitizeFmSource(source);
         }
 
-        return lockWriteUnlock(objectSourceUrl, source, transport);
+        // Skip the write when SAP already has this source
+        String hash = SourceHashCache.hash(source);
+        SourceHashCache.Match match = optBoolean(arguments, "force", false)
+                ? SourceHashCache.Match.NONE
+                : sourceHashes.match(objectSourceUrl, hash);
+        if (match != SourceHashCache.Match.NONE) {
+            String result = unchanged(objectSourceUrl, hash, match);
+            SourceHashCache.recordSessionBase(session, objectSourceUrl, hash);
+            return result;
+        }
+
+        String result;
+        try {
+            result = lockWriteUnlock(objectSourceUrl, source, hash, transport, ownerOf(context));
+        } catch (Exception e) {
+            sourceHashes.invalidate(objectSourceUrl);
+            throw e;
+        } finally {
+            // After the lock is taken, so a session closed meanwhile still releases it
+            releaseLocksOnClose(context, locks);
+        }
+        // The next patch of this session refers to what it just wrote
+        SourceHashCache.recordSessionBase(session, objectSourceUrl, hash);
+        return result;
+    }
+
+    /**
+     * Fetches the current source and applies the patch or edits to it. The
+     * fetched source must be the version this session last read or wrote,
+     * otherwise the patch may refer to lines that have changed since, e.g.
+     * by another agent. Line-range edits carry no context to check, so they
+     * need that version to be known.
+     */
+    private String applyPatch(String sourceUrl, String patch, JsonArray edits, ToolSession session)
+            throws Exception {
+        String base = client().get(sourceUrl, "text/plain").body();
+        String comparable = isFunctionModuleUrl(sourceUrl) ? sanitizeFmSource(base) : base;
+
+        String lastRead = SourceHashCache.sessionBase(session, sourceUrl);
+        if (lastRead != null && !lastRead.equals(SourceHashCache.hash(comparable))) {
+            throw new IllegalArgumentException("The source of " + sourceUrl + " changed since this session "
+                    + "last read it. Read it again with sap_get_source and rebuild the patch.");
+        }
+        if (lastRead == null && edits != null) {
+            throw new IllegalArgumentException("Line-range edits need a known base version. "
+                    + "Read the source with sap_get_source in this session first.");
+        }
+
+        return patch != null ? SourcePatch.applyUnifiedDiff(base, patch) : SourcePatch.applyEdits(base, edits);
     }
 
-    private String lockWriteUnlock(String objectSourceUrl, String source, String transport) throws Exception {
+    /**
+     * Result for a write of unchanged source. A version that was written but
+     * not activated yet is still activated, through the session holding the
+     * lock if the object is still locked here.
+     */
+    private String unchanged(String sourceUrl, String hash, SourceHashCache.Match match) {
+        JsonObject output = new JsonObject();
+        output.addProperty("status", "unchanged");
+        if (match == SourceHashCache.Match.ACTIVE) {
+            output.addProperty("activated", true);
+            return output.toString();
+        }
+        AdtLockManager.Lock lock = locks.findByObject(toLockUrl(sourceUrl));
+        if (activate(lock != null ? lock.client() : client(), sourceUrl, output)) {
+            sourceHashes.recordWrite(sourceUrl, hash, true);
+        }
+        return output.toString();
+    }
+
+    private String lockWriteUnlock(String objectSourceUrl, String source, String hash, String transport,
+                                   String owner) throws Exception {
         final int maxAttempts = 3;
         Exception lastError = null;
 
         for (int attempt = 1; attempt <= maxAttempts; attempt++) {
             try {
-                return lockWriteUnlockAttempt(objectSourceUrl, source, transport);
+                return lockWriteUnlockAttempt(objectSourceUrl, source, hash, transport, owner);
             } catch (java.io.IOException e) {
                 lastError = e;
                 String msg = e.getMessage() != null ? e.getMessage() : "";
-                if (msg.contains("HTTP 423") && attempt < maxAttempts) {
+                // Locked in SAP, or here by another session's running write
+                boolean locked = msg.contains("HTTP 423") || e instanceof AdtLockManager.LockedException;
+                if (locked && attempt < maxAttempts) {
                     Thread.sleep(500);
                     continue;
                 }
@@ -94,21 +225,17 @@ public class SetSourceTool extends AbstractMcpTool {
         throw lastError;
     }
 
-    private String lockWriteUnlockAttempt(String sourceUrl, String source, String transport) throws Exception {
+    private String lockWriteUnlockAttempt(String sourceUrl, String source, String hash, String transport,
+                                          String owner) throws Exception {
         String lockUrl = toLockUrl(sourceUrl);
 
-        // Lock
-        String lockPath = lockUrl + "?_action=LOCK&accessMode=MODIFY";
-        HttpResponse<String> lockResp = client.postWithHeaders(lockPath, "",
-                "application/*",
-                "application/vnd.sap.as+xml;charset=UTF-8;dataname=com.sap.adt.lock.result;q=0.8, "
-                + "application/vnd.sap.as+xml;charset=UTF-8;dataname=com.sap.adt.lock.result2;q=0.9",
-                STATEFUL_HEADERS);
-        String lockHandle = AdtXmlParser.extractLockHandle(lockResp.body());
-
-        if (lockHandle == null || lockHandle.isEmpty()) {
-            throw new RuntimeException("Failed to acquire lock on " + lockUrl + ". Response: " + lockResp.body());
-        }
+        // Lock, unless the caller still holds the object from sap_lock or a
+        // recent write. Write and activation go through the session that holds
+        // the lock.
+        AdtLockManager.Lock lock = locks.lockForEdit(lockUrl, owner);
+        AdtRestClient client = lock.client();
+        String lockHandle = lock.getHandle();
+        boolean written = false;
 
         try {
             // Write
@@ -119,38 +246,45 @@ public class SetSourceTool extends AbstractMcpTool {
 
             HttpResponse<String> response = client.putWithHeaders(writePath, source,
                     "text/plain; charset=utf-8", STATEFUL_HEADERS);
+            written = true;
 
             JsonObject output = new JsonObject();
             output.addProperty("status", "success");
             output.addProperty("statusCode", response.statusCode());
 
-            // Activate
-            String objectUrl = sourceUrl;
-            if (objectUrl.endsWith("/source/main")) {
-                objectUrl = objectUrl.substring(0, objectUrl.length() - "/source/main".length());
-            }
-            String objectName = extractObjectName(objectUrl);
-            try {
-                String activateXml = "<adtcore:objectReferences xmlns:adtcore=\"http://www.sap.com/adt/core\">"
-                        + "<adtcore:objectReference adtcore:uri=\"" + escapeXml(objectUrl)
-                        + "\" adtcore:name=\"" + escapeXml(objectName) + "\"/>"
-                        + "</adtcore:objectReferences>";
-
-                client.post(
-                        "/sap/bc/adt/activation?method=activate&preauditRequested=true",
-                        activateXml,
-                        "application/xml",
-                        "application/xml,application/vnd.sap.adt.inactivectsobjects.v1+xml;q=0.9");
-
-                output.addProperty("activated", true);
-            } catch (Exception e) {
-                output.addProperty("activated", false);
-                output.addProperty("activationError", e.getMessage());
-            }
+            boolean activated = activate(client, sourceUrl, output);
+            sourceHashes.recordWrite(sourceUrl, hash, activated);
 
             return output.toString();
         } finally {
-            safeUnlock(lockUrl, lockHandle);
+            locks.endEdit(lock, written);
+        }
+    }
+
+    private boolean activate(AdtRestClient client, String sourceUrl, JsonObject output) {
+        String objectUrl = sourceUrl;
+        if (objectUrl.endsWith("/source/main")) {
+            objectUrl = objectUrl.substring(0, objectUrl.length() - "/source/main".length());
+        }
+        String objectName = extractObjectName(objectUrl);
+        try {
+            String activateXml = "<adtcore:objectReferences xmlns:adtcore=\"http://www.sap.com/adt/core\">"
+                    + "<adtcore:objectReference adtcore:uri=\"" + escapeXml(objectUrl)
+                    + "\" adtcore:name=\"" + escapeXml(objectName) + "\"/>"
+                    + "</adtcore:objectReferences>";
+
+            client.post(
+                    "/sap/bc/adt/activation?method=activate&preauditRequested=true",
+                    activateXml,
+                    "application/xml",
+                    "application/xml,application/vnd.sap.adt.inactivectsobjects.v1+xml;q=0.9");
+
+            output.addProperty("activated", true);
+            return true;
+        } catch (Exception e) {
+            output.addProperty("activated", false);
+            output.addProperty("activationError", e.getMessage());
+            return false;
         }
     }
 
@@ -164,13 +298,4 @@ public class SetSourceTool extends AbstractMcpTool {
         }
         return "UNKNOWN";
     }
-
-    private void safeUnlock(String lockUrl, String lockHandle) {
-        try {
-            String unlockPath = lockUrl + "?_action=UNLOCK&lockHandle=" + urlEncode(lockHandle);
-            client.postWithHeaders(unlockPath, "", "application/*", "application/*", STATEFUL_HEADERS);
-        } catch (Exception e) {
-            // Ignore
-        }
-    }
 }
@@ -0,0 +1,192 @@
+package com.sap.adt.mcp.tools;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+/**
+ * Remembers hashes of the last known source of ABAP objects, so a write of
+ * unchanged source can be skipped.
+ *
+ * <p>For each object source URL the cache keeps two hashes: the latest version
+ * (what a read without version, or of the inactive version, returns) and the
+ * active version. Reads fill them in, successful writes update them. Entries
+ * expire after a while because the source may also change outside of this
+ * server.</p>
+ *
+ * <p>Each MCP session also keeps the hash of the latest version it read or
+ * wrote per object, the base its patches and line-range edits refer to. It
+ * lives in the {@link ToolSession}, so a read by another session does not
+ * move it.</p>
+ *
+ * <p>Hashes are taken over normalized source: line endings unified, trailing
+ * blanks of each line and trailing empty lines removed, since SAP does not
+ * keep them either.</p>
+ */
+public class SourceHashCache {
+
+    public static final int DEFAULT_TTL_SECONDS = 600;
+    private static final int MAX_ENTRIES = 2000;
+    private static final String SESSION_BASES_ATTRIBUTE = "sourceHashes.sessionBases";
+
+    /**
+     * How a source compares to the cached state of an object.
+     */
+    public enum Match {
+        /** Unknown or different from the latest version: write it. */
+        NONE,
+        /** Equal to the latest version, which may not be active yet. */
+        LATEST,
+        /** Equal to the latest version, which is also the active one. */
+        ACTIVE
+    }
+
+    private static final class Entry {
+        final String latest;
+        final String active;
+        final long storedAt;
+
+        Entry(String latest, String active) {
+            this.latest = latest;
+            this.active = active;
+            this.storedAt = System.currentTimeMillis();
+        }
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private volatile long ttlMillis = TimeUnit.SECONDS.toMillis(DEFAULT_TTL_SECONDS);
+
+    public void setTtlSeconds(int seconds) {
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(Math.max(0, seconds));
+    }
+
+    /**
+     * Returns the hash of the normalized source.
+     */
+    public static String hash(String source) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] bytes = digest.digest(normalize(source).getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(bytes.length * 2);
+            for (byte b : bytes) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    static String normalize(String source) {
+        if (source == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(source.length());
+        for (String line : source.split("\r\n|\r|\n", -1)) {
+            sb.append(line.stripTrailing()).append('\n');
+        }
+        int end = sb.length();
+        while (end > 0 && sb.charAt(end - 1) == '\n') {
+            end--;
+        }
+        sb.setLength(end);
+        return sb.toString();
+    }
+
+    /**
+     * Records source read from SAP.
+     *
+     * @param version the version requested: "active", "inactive", "workingArea", or null for the latest
+     * @return the hash of the source
+     */
+    public String recordRead(String sourceUrl, String version, String source) {
+        String hash = hash(source);
+        boolean active = "active".equalsIgnoreCase(version);
+        update(sourceUrl, entry -> active
+                ? new Entry(entry != null ? entry.latest : null, hash)
+                : new Entry(hash, entry != null ? entry.active : null));
+        return hash;
+    }
+
+    /**
+     * Records a successful write. After an activation the written source is
+     * also the active version; otherwise the active hash is left as it was.
+     */
+    public void recordWrite(String sourceUrl, String hash, boolean activated) {
+        update(sourceUrl, entry -> new Entry(hash, activated ? hash : entry != null ? entry.active : null));
+    }
+
+    /**
+     * Compares a source hash with the cached state of the object.
+     */
+    public Match match(String sourceUrl, String hash) {
+        Entry entry = entries.get(key(sourceUrl));
+        if (entry == null || isExpired(entry, System.currentTimeMillis()) || !hash.equals(entry.latest)) {
+            return Match.NONE;
+        }
+        return hash.equals(entry.active) ? Match.ACTIVE : Match.LATEST;
+    }
+
+    /**
+     * Records the latest version a session read or wrote as the base of its
+     * next patch. Does nothing without a session.
+     */
+    public static void recordSessionBase(ToolSession session, String sourceUrl, String hash) {
+        if (session == null) {
+            return;
+        }
+        Map<String, String> bases = session.computeAttributeIfAbsent(SESSION_BASES_ATTRIBUTE,
+                key -> new ConcurrentHashMap<String, String>());
+        if (bases.size() >= MAX_ENTRIES) {
+            bases.clear();
+        }
+        bases.put(key(sourceUrl), hash);
+    }
+
+    /**
+     * Returns the hash of the latest version the session read or wrote, or
+     * null if it has none.
+     */
+    public static String sessionBase(ToolSession session, String sourceUrl) {
+        Map<String, String> bases = session != null ? session.getAttribute(SESSION_BASES_ATTRIBUTE) : null;
+        return bases != null ? bases.get(key(sourceUrl)) : null;
+    }
+
+    /**
+     * Forgets an object, e.g. after a failed write left its state unknown.
+     */
+    public void invalidate(String sourceUrl) {
+        entries.remove(key(sourceUrl));
+    }
+
+    private void update(String sourceUrl, UnaryOperator<Entry> change) {
+        long now = System.currentTimeMillis();
+        entries.compute(key(sourceUrl), (key, entry) -> change.apply(
+                entry != null && !isExpired(entry, now) ? entry : null));
+        if (entries.size() > MAX_ENTRIES) {
+            entries.values().removeIf(entry -> isExpired(entry, now));
+            if (entries.size() > MAX_ENTRIES) {
+                entries.clear();
+            }
+        }
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        return now - entry.storedAt > ttlMillis;
+    }
+
+    /**
+     * Keys by the source URL, so an object URL and its source URL share an
+     * entry, without query and ignoring case.
+     */
+    private static String key(String sourceUrl) {
+        String url = AbstractMcpTool.ensureSourceUrl(sourceUrl);
+        int query = url.indexOf('?');
+        String path = query >= 0 ? url.substring(0, query) : url;
+        return path.toLowerCase();
+    }
+}
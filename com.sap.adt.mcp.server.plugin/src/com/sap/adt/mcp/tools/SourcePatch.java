@@ -0,0 +1,201 @@
+package com.sap.adt.mcp.tools;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+/**
+ * Applies partial source changes, so an agent can send a few changed lines
+ * instead of the whole object.
+ *
+ * <p>Two forms are supported: a unified diff, whose context and removed lines
+ * must match the base, and a list of line-range replacements. Both fail with
+ * {@link IllegalArgumentException} when they do not fit the base. The base's
+ * line separator and trailing newline are kept.</p>
+ */
+public final class SourcePatch {
+
+    private static final Pattern HUNK_HEADER =
+            Pattern.compile("^@@ -(\\d+)(?:,(\\d+))? \\+(\\d+)(?:,(\\d+))? @@.*");
+
+    private SourcePatch() {}
+
+    /**
+     * Applies a unified diff. Lines outside of hunks, e.g. the file headers
+     * ({@code ---}/{@code +++}), are ignored. A hunk whose line numbers are off
+     * is searched for nearby.
+     */
+    public static String applyUnifiedDiff(String base, String diff) {
+        Lines lines = Lines.split(base);
+        List<String> result = new ArrayList<>(lines.lines.size());
+        int position = 0;
+        int hunks = 0;
+
+        List<String> diffLines = Arrays.asList(diff.split("\r\n|\r|\n", -1));
+        int i = 0;
+        while (i < diffLines.size()) {
+            Matcher header = HUNK_HEADER.matcher(diffLines.get(i));
+            if (!header.matches()) {
+                i++;
+                continue;
+            }
+            hunks++;
+            i++;
+
+            int oldCount = header.group(2) != null ? Integer.parseInt(header.group(2)) : 1;
+            int newCount = header.group(4) != null ? Integer.parseInt(header.group(4)) : 1;
+            List<String> expected = new ArrayList<>();
+            List<String> replacement = new ArrayList<>();
+            while (i < diffLines.size() && (expected.size() < oldCount || replacement.size() < newCount)) {
+                String line = diffLines.get(i++);
+                if (line.startsWith("\\")) {
+                    continue; // "\ No newline at end of file"
+                }
+                // Some editors strip the blank of an empty context line
+                char kind = line.isEmpty() ? ' ' : line.charAt(0);
+                String text = line.isEmpty() ? "" : line.substring(1);
+                if (kind == ' ') {
+                    expected.add(text);
+                    replacement.add(text);
+                } else if (kind == '-') {
+                    expected.add(text);
+                } else if (kind == '+') {
+                    replacement.add(text);
+                } else {
+                    throw new IllegalArgumentException("Invalid line in hunk " + hunks + ": " + line);
+                }
+            }
+            if (expected.size() != oldCount || replacement.size() != newCount) {
+                throw new IllegalArgumentException("Hunk " + hunks + " is incomplete: expected "
+                        + oldCount + " old and " + newCount + " new lines");
+            }
+
+            int oldStart = Integer.parseInt(header.group(1));
+            int wanted = expected.isEmpty() ? oldStart : oldStart - 1;
+            int at = find(lines.lines, expected, Math.max(wanted, position), position);
+            if (at < 0) {
+                throw new IllegalArgumentException("Hunk " + hunks + " (@@ -" + oldStart
+                        + ") does not match the current source");
+            }
+            result.addAll(lines.lines.subList(position, at));
+            result.addAll(replacement);
+            position = at + expected.size();
+        }
+        if (hunks == 0) {
+            throw new IllegalArgumentException("The patch contains no hunks (@@ -a,b +c,d @@)");
+        }
+        result.addAll(lines.lines.subList(position, lines.lines.size()));
+        return lines.join(result);
+    }
+
+    /**
+     * Applies line-range replacements. Each edit has {@code startLine} and
+     * {@code endLine} (1-based, inclusive) and the new {@code text}; an empty
+     * text deletes the lines, and {@code endLine = startLine - 1} inserts before
+     * {@code startLine}. Line numbers refer to the base, ranges must not overlap.
+     */
+    public static String applyEdits(String base, JsonArray edits) {
+        Lines lines = Lines.split(base);
+        List<int[]> ranges = new ArrayList<>();
+        List<List<String>> texts = new ArrayList<>();
+        for (JsonElement element : edits) {
+            if (!element.isJsonObject()) {
+                throw new IllegalArgumentException("Each edit must be an object with startLine, endLine and text");
+            }
+            JsonObject edit = element.getAsJsonObject();
+            if (!edit.has("startLine") || !edit.has("endLine")) {
+                throw new IllegalArgumentException("Each edit needs startLine and endLine");
+            }
+            int start = edit.get("startLine").getAsInt();
+            int end = edit.get("endLine").getAsInt();
+            if (start < 1 || end < start - 1 || end > lines.lines.size()) {
+                throw new IllegalArgumentException("Invalid line range " + start + "-" + end
+                        + " for a source of " + lines.lines.size() + " lines");
+            }
+            String text = edit.has("text") && !edit.get("text").isJsonNull() ? edit.get("text").getAsString() : "";
+            ranges.add(new int[] { start, end, texts.size() });
+            texts.add(text.isEmpty() ? List.of() : Lines.split(text).lines);
+        }
+
+        ranges.sort(Comparator.comparingInt((int[] range) -> range[0]).thenComparingInt(range -> range[1]));
+        List<String> result = new ArrayList<>(lines.lines.size());
+        int position = 0;
+        for (int[] range : ranges) {
+            int from = range[0] - 1;
+            if (from < position) {
+                throw new IllegalArgumentException("Edits overlap at line " + range[0]);
+            }
+            result.addAll(lines.lines.subList(position, from));
+            result.addAll(texts.get(range[2]));
+            position = range[1];
+        }
+        result.addAll(lines.lines.subList(position, lines.lines.size()));
+        return lines.join(result);
+    }
+
+    /**
+     * Finds {@code expected} in {@code lines} at or after {@code minimum},
+     * starting at {@code wanted} and moving outwards.
+     */
+    private static int find(List<String> lines, List<String> expected, int wanted, int minimum) {
+        int last = lines.size() - expected.size();
+        for (int offset = 0; wanted - offset >= minimum || wanted + offset <= last; offset++) {
+            if (matchesAt(lines, expected, wanted + offset)) {
+                return wanted + offset;
+            }
+            if (offset > 0 && wanted - offset >= minimum && matchesAt(lines, expected, wanted - offset)) {
+                return wanted - offset;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean matchesAt(List<String> lines, List<String> expected, int at) {
+        if (at < 0 || at + expected.size() > lines.size()) {
+            return false;
+        }
+        for (int i = 0; i < expected.size(); i++) {
+            if (!lines.get(at + i).stripTrailing().equals(expected.get(i).stripTrailing())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Source split into lines, remembering how to put it back together.
+     */
+    private static final class Lines {
+        final List<String> lines;
+        final String separator;
+        final boolean trailingNewline;
+
+        private Lines(List<String> lines, String separator, boolean trailingNewline) {
+            this.lines = lines;
+            this.separator = separator;
+            this.trailingNewline = trailingNewline;
+        }
+
+        static Lines split(String text) {
+            String separator = text.contains("\r\n") ? "\r\n" : "\n";
+            List<String> lines = new ArrayList<>(Arrays.asList(text.split("\r\n|\r|\n", -1)));
+            boolean trailingNewline = lines.size() > 1 && lines.get(lines.size() - 1).isEmpty();
+            if (trailingNewline || text.isEmpty()) {
+                lines.remove(lines.size() - 1);
+            }
+            return new Lines(lines, separator, trailingNewline);
+        }
+
+        String join(List<String> result) {
+            String joined = String.join(separator, result);
+            return trailingNewline && !result.isEmpty() ? joined + separator : joined;
+        }
+    }
+}
@@ -1,10 +1,12 @@
 package com.sap.adt.mcp.tools;
 
-import java.net.http.HttpResponse;
+import java.io.InputStream;
+import java.io.StringWriter;
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
-import com.sap.adt.mcp.sap.AdtRestClient;
+import com.google.gson.stream.JsonWriter;
+import com.sap.adt.mcp.sap.AdtSessionPool;
 import com.sap.adt.mcp.sap.AdtXmlParser;
 
 /**
@@ -14,8 +16,8 @@ public class SqlQueryTool extends AbstractMcpTool {
 
     public static final String NAME = "sap_sql_query";
 
-    public SqlQueryTool(AdtRestClient client) {
-        super(client);
+    public SqlQueryTool(AdtSessionPool sessions) {
+        super(sessions);
     }
 
     @Override
@@ -59,11 +61,13 @@ public class SqlQueryTool extends AbstractMcpTool {
         int maxRows = optInt(arguments, "maxRows", 100);
 
         String path = "/sap/bc/adt/datapreview/freestyle?rowNumber=" + maxRows;
-        HttpResponse<String> resp = client.post(path, query,
+        // Transcode the rows straight from the response stream into the result text
+        StringWriter result = new StringWriter();
+        try (InputStream body = client().postStream(path, query,
                 "text/plain; charset=utf-8",
-                "application/vnd.sap.adt.datapreview.table.v1+xml");
-
-        JsonObject result = AdtXmlParser.parseDataPreview(resp.body());
+                "application/vnd.sap.adt.datapreview.table.v1+xml")) {
+            AdtXmlParser.writeDataPreview(body, new JsonWriter(result));
+        }
         return result.toString();
     }
 }
@@ -4,7 +4,7 @@ import java.net.http.HttpResponse;
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
-import com.sap.adt.mcp.sap.AdtRestClient;
+import com.sap.adt.mcp.sap.AdtSessionPool;
 import com.sap.adt.mcp.sap.AdtXmlParser;
 
 /**
@@ -14,8 +14,8 @@ public class SyntaxCheckTool extends AbstractMcpTool {
 
     public static final String NAME = "sap_syntax_check";
 
-    public SyntaxCheckTool(AdtRestClient client) {
-        super(client);
+    public SyntaxCheckTool(AdtSessionPool sessions) {
+        super(sessions);
     }
 
     @Override
@@ -60,7 +60,7 @@ public class SyntaxCheckTool extends AbstractMcpTool {
                 + "  <chkrun:checkObject chkrun:uri=\"" + escapeXml(sourceUrl) + "\"/>\n"
                 + "</chkrun:checkObjectList>";
 
-        HttpResponse<String> response = client.post(
+        HttpResponse<String> response = client().post(
                 "/sap/bc/adt/checkruns?reporters=abapCheckRun",
                 checkXml,
                 "application/vnd.sap.adt.checkobjects+xml",
@@ -0,0 +1,83 @@
+package com.sap.adt.mcp.tools;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sap.adt.mcp.sap.AdtCallScope;
+
+/**
+ * Per-call context handed to a tool by the MCP server.
+ *
+ * <p>Lets long-running tools report progress while they run. When the client
+ * did not ask for progress, reports are silently dropped. Also gives access to
+ * the calling MCP session's scratch state, and carries the cancellation scope
+ * that the server binds around the tool's SAP calls.</p>
+ */
+public class ToolContext {
+
+    /**
+     * Receives progress reports. {@code progress} increases with every report.
+     */
+    public interface ProgressListener {
+        void onProgress(int progress, String message);
+    }
+
+    private final ToolSession session;
+    private final ProgressListener progressListener;
+    private final AtomicInteger progress = new AtomicInteger();
+    private final AdtCallScope callScope;
+
+    public ToolContext(ToolSession session, ProgressListener progressListener) {
+        this(session, progressListener, new AdtCallScope());
+    }
+
+    private ToolContext(ToolSession session, ProgressListener progressListener, AdtCallScope callScope) {
+        this.session = session;
+        this.progressListener = progressListener;
+        this.callScope = callScope;
+    }
+
+    /**
+     * Returns a new context for a call made outside of the MCP server, e.g.
+     * from another tool. It joins the scope bound to the current thread, so
+     * the nested call shares the caller's cancellation and budget; without
+     * one it gets a scope of its own.
+     */
+    public static ToolContext none() {
+        AdtCallScope current = AdtCallScope.current();
+        return new ToolContext(null, null, current != null ? current : new AdtCallScope());
+    }
+
+    /**
+     * Returns the calling MCP session, or null when the call has no session.
+     */
+    public ToolSession getSession() {
+        return session;
+    }
+
+    /**
+     * Returns the scope that groups this call's SAP requests for cancellation.
+     */
+    public AdtCallScope getCallScope() {
+        return callScope;
+    }
+
+    /**
+     * Cancels the call: in-flight SAP requests are aborted and new ones fail.
+     */
+    public void cancel(String reason) {
+        callScope.cancel(reason);
+    }
+
+    public boolean isCancelled() {
+        return callScope.isCancelled();
+    }
+
+    /**
+     * Reports that the tool reached a new step, e.g. "Running ATC checks".
+     */
+    public void reportProgress(String message) {
+        if (progressListener != null) {
+            progressListener.onProgress(progress.incrementAndGet(), message);
+        }
+    }
+}
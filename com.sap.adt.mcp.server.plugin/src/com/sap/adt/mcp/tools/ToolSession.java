@@ -0,0 +1,37 @@
+package com.sap.adt.mcp.tools;
+
+import java.util.function.Function;
+
+/**
+ * Per-session scratch state that tools can keep between calls of the same
+ * MCP client session, e.g. last-read source hashes or lock handles.
+ *
+ * <p>State is dropped when the session is closed or evicted after being idle.</p>
+ */
+public interface ToolSession {
+
+    /**
+     * Returns the MCP session id.
+     */
+    String getId();
+
+    /**
+     * Returns the attribute stored under the key, or null.
+     */
+    <T> T getAttribute(String key);
+
+    void setAttribute(String key, Object value);
+
+    void removeAttribute(String key);
+
+    /**
+     * Returns the attribute stored under the key, creating it atomically if absent.
+     */
+    <T> T computeAttributeIfAbsent(String key, Function<String, T> factory);
+
+    /**
+     * Registers a callback that runs once when the session is closed or evicted,
+     * or right away if that happened already.
+     */
+    void addCloseListener(Runnable listener);
+}
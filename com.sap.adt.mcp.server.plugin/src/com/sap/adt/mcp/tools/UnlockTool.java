@@ -1,10 +1,9 @@
 package com.sap.adt.mcp.tools;
 
-import java.net.http.HttpResponse;
-
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
-import com.sap.adt.mcp.sap.AdtRestClient;
+import com.sap.adt.mcp.sap.AdtLockManager;
+import com.sap.adt.mcp.sap.AdtSessionPool;
 
 /**
  * Tool: sap_unlock -- Unlock an ABAP object.
@@ -13,8 +12,11 @@ public class UnlockTool extends AbstractMcpTool {
 
     public static final String NAME = "sap_unlock";
 
-    public UnlockTool(AdtRestClient client) {
-        super(client);
+    private final AdtLockManager locks;
+
+    public UnlockTool(AdtSessionPool sessions, AdtLockManager locks) {
+        super(sessions);
+        this.locks = locks;
     }
 
     @Override
@@ -53,19 +55,22 @@ public class UnlockTool extends AbstractMcpTool {
 
     @Override
     public String execute(JsonObject arguments) throws Exception {
+        return execute(arguments, ToolContext.none());
+    }
+
+    @Override
+    public String execute(JsonObject arguments, ToolContext context) throws Exception {
         String objectUrl = resolveObjectUrlArg(arguments, "objectUrl");
         if (objectUrl == null) {
             throw new IllegalArgumentException("Provide objectType + objectName.");
         }
         String lockHandle = arguments.get("lockHandle").getAsString();
 
-        String unlockPath = objectUrl + "?_action=UNLOCK&lockHandle=" + urlEncode(lockHandle);
-        HttpResponse<String> resp = client.postWithHeaders(unlockPath, "",
-                "application/*", "application/*", STATEFUL_HEADERS);
+        int statusCode = locks.unlock(objectUrl, lockHandle, ownerOf(context));
 
         JsonObject output = new JsonObject();
         output.addProperty("success", true);
-        output.addProperty("statusCode", resp.statusCode());
+        output.addProperty("statusCode", statusCode);
 
         return output.toString();
     }
@@ -3,7 +3,7 @@ package com.sap.adt.mcp.tools;
 import java.net.http.HttpResponse;
 
 import com.google.gson.JsonObject;
-import com.sap.adt.mcp.sap.AdtRestClient;
+import com.sap.adt.mcp.sap.AdtSessionPool;
 
 /**
  * Tool: sap_usage_references -- Find where-used list.
@@ -12,8 +12,8 @@ public class UsageReferencesTool extends AbstractMcpTool {
 
     public static final String NAME = "sap_usage_references";
 
-    public UsageReferencesTool(AdtRestClient client) {
-        super(client);
+    public UsageReferencesTool(AdtSessionPool sessions) {
+        super(sessions);
     }
 
     @Override
@@ -50,7 +50,7 @@ public class UsageReferencesTool extends AbstractMcpTool {
         path.append("/sap/bc/adt/repository/informationsystem/usagereferences");
         path.append("?uri=").append(urlEncode(url));
 
-        HttpResponse<String> response = client.post(path.toString(), "", "application/*", "application/*");
+        HttpResponse<String> response = client().post(path.toString(), "", "application/*", "application/*");
 
         JsonObject output = new JsonObject();
         output.addProperty("statusCode", response.statusCode());
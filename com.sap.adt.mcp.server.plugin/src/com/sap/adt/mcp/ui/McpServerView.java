@@ -25,7 +25,8 @@ import org.eclipse.swt.widgets.Shell;
 import org.eclipse.swt.widgets.Text;
 import org.eclipse.ui.part.ViewPart;
 
-import com.sap.adt.mcp.sap.AdtRestClient;
+import com.sap.adt.mcp.sap.AdtLockManager;
+import com.sap.adt.mcp.sap.AdtSessionPool;
 import com.sap.adt.mcp.server.McpServer;
 import com.sap.adt.mcp.tools.*;
 
@@ -40,7 +41,8 @@ public class McpServerView extends ViewPart {
     private static final int DEFAULT_PORT = 3000;
 
     private McpServer mcpServer;
-    private AdtRestClient adtClient;
+    private AdtSessionPool adtSessions;
+    private AdtLockManager adtLocks;
     private Process claudeProcess;
     private Thread outputThread;
 
@@ -124,6 +126,11 @@ public class McpServerView extends ViewPart {
 
         // Initialize MCP server
         mcpServer = new McpServer(DEFAULT_PORT);
+        mcpServer.addStopListener(() -> {
+            if (adtLocks != null) {
+                adtLocks.releaseAllLater();
+            }
+        });
         mcpServer.setStatusListener((running, message) -> {
             Display.getDefault().asyncExec(() -> {
                 updateStatusLabel();
@@ -185,12 +192,22 @@ public class McpServerView extends ViewPart {
 
     private void connectToSap() {
         appendOutput("Connecting to SAP at " + sapUrl + "...\n");
+        disconnectSap();
 
         try {
-            adtClient = new AdtRestClient(sapUrl, sapUser, sapPassword, sapClient, sapLanguage, true);
-            adtClient.login();
-
-            appendOutput("Successfully connected to SAP!\n");
+            adtSessions = AdtSessionPool.create(sapUrl, sapUser, sapPassword, sapClient, sapLanguage, true,
+                    getPreferenceInt(com.sap.adt.mcp.preferences.PreferenceInitializer.PREF_SAP_SESSIONS,
+                            AdtSessionPool.DEFAULT_SIZE));
+            adtSessions.login();
+            adtLocks = new AdtLockManager(adtSessions);
+            adtLocks.setLeaseMinutes(getPreferenceInt(
+                    com.sap.adt.mcp.preferences.PreferenceInitializer.PREF_LOCK_LEASE,
+                    AdtLockManager.DEFAULT_LEASE_MINUTES));
+            adtLocks.setEditWindowSeconds(getPreferenceInt(
+                    com.sap.adt.mcp.preferences.PreferenceInitializer.PREF_EDIT_WINDOW,
+                    AdtLockManager.DEFAULT_EDIT_WINDOW_SECONDS));
+
+            appendOutput("Successfully connected to SAP with " + adtSessions.size() + " session(s)!\n");
             appendOutput("Registering SAP tools...\n");
 
             registerSapTools();
@@ -201,7 +218,32 @@ public class McpServerView extends ViewPart {
 
         } catch (Exception e) {
             appendOutput("ERROR: Failed to connect to SAP: " + e.getMessage() + "\n");
-            adtClient = null;
+            disconnectSap();
+        }
+    }
+
+    /**
+     * Releases the locks, stops the lock sweeper and logs the sessions out.
+     * The unlocks run on the sweeper thread and need the sessions, so the
+     * logout follows them there.
+     */
+    private void disconnectSap() {
+        AdtSessionPool sessions = adtSessions;
+        AdtLockManager locks = adtLocks;
+        adtSessions = null;
+        adtLocks = null;
+        if (locks != null) {
+            locks.close().whenComplete((result, error) -> sessions.logout());
+        } else if (sessions != null) {
+            sessions.logout();
+        }
+    }
+
+    private int getPreferenceInt(String key, int defaultValue) {
+        try {
+            return com.sap.adt.mcp.Activator.getDefault().getPreferenceStore().getInt(key);
+        } catch (Exception e) {
+            return defaultValue;
         }
     }
 
@@ -209,39 +251,40 @@ public class McpServerView extends ViewPart {
         List<McpTool> tools = new ArrayList<>();
 
         // Core object operations
-        tools.add(new SearchObjectTool(adtClient));
-        tools.add(new GetSourceTool(adtClient));
-        tools.add(new SetSourceTool(adtClient));
-        tools.add(new ObjectStructureTool(adtClient));
+        tools.add(new SearchObjectTool(adtSessions));
+        SourceHashCache sourceHashes = new SourceHashCache();
+        tools.add(new GetSourceTool(adtSessions, sourceHashes));
+        tools.add(new SetSourceTool(adtSessions, adtLocks, sourceHashes));
+        tools.add(new ObjectStructureTool(adtSessions));
 
         // Lock management
-        tools.add(new LockTool(adtClient));
-        tools.add(new UnlockTool(adtClient));
+        tools.add(new LockTool(adtSessions, adtLocks));
+        tools.add(new UnlockTool(adtSessions, adtLocks));
 
         // Syntax and activation
-        tools.add(new SyntaxCheckTool(adtClient));
-        tools.add(new ActivateTool(adtClient));
-        tools.add(new InactiveObjectsTool(adtClient));
+        tools.add(new SyntaxCheckTool(adtSessions));
+        tools.add(new ActivateTool(adtSessions));
+        tools.add(new InactiveObjectsTool(adtSessions));
 
         // Object creation
-        tools.add(new CreateObjectTool(adtClient));
+        tools.add(new CreateObjectTool(adtSessions));
 
         // Testing and quality
-        tools.add(new RunUnitTestTool(adtClient));
-        tools.add(new AtcRunTool(adtClient));
+        tools.add(new RunUnitTestTool(adtSessions));
+        tools.add(new AtcRunTool(adtSessions));
 
         // Analysis
-        tools.add(new UsageReferencesTool(adtClient));
-        tools.add(new SqlQueryTool(adtClient));
+        tools.add(new UsageReferencesTool(adtSessions));
+        tools.add(new SqlQueryTool(adtSessions));
 
         // Documentation
-        tools.add(new AbapDocuTool(adtClient));
+        tools.add(new AbapDocuTool(adtSessions));
 
         mcpServer.registerTools(tools);
     }
 
     private void updateStatusLabel() {
-        String sapStatus = adtClient != null && adtClient.isLoggedIn() ? "Connected" : "Not Connected";
+        String sapStatus = adtSessions != null && adtSessions.isLoggedIn() ? "Connected" : "Not Connected";
         String mcpStatus = mcpServer != null && mcpServer.isRunning() ? "Running" : "Stopped";
         statusLabel.setText("SAP: " + sapStatus + " | MCP: " + mcpStatus);
     }
@@ -251,6 +294,7 @@ public class McpServerView extends ViewPart {
             mcpServer.stop();
         } else {
             try {
+                applyServerPreferences();
                 mcpServer.start();
                 writeMcpConfig();
             } catch (IOException e) {
@@ -259,6 +303,41 @@ public class McpServerView extends ViewPart {
         }
     }
 
+    private void applyServerPreferences() {
+        try {
+            org.eclipse.jface.preference.IPreferenceStore store =
+                    com.sap.adt.mcp.Activator.getDefault().getPreferenceStore();
+
+            mcpServer.setUseVirtualThreads(store.getBoolean(
+                    com.sap.adt.mcp.preferences.PreferenceInitializer.PREF_VIRTUAL_THREADS));
+            mcpServer.setMaxConcurrentToolCalls(store.getInt(
+                    com.sap.adt.mcp.preferences.PreferenceInitializer.PREF_MAX_CONCURRENT_TOOLS));
+            mcpServer.setToolCallQueueTimeoutSeconds(store.getInt(
+                    com.sap.adt.mcp.preferences.PreferenceInitializer.PREF_TOOL_QUEUE_TIMEOUT));
+            mcpServer.setSessionIdleTimeoutMinutes(store.getInt(
+                    com.sap.adt.mcp.preferences.PreferenceInitializer.PREF_SESSION_IDLE_TIMEOUT));
+            mcpServer.setMaxSessions(store.getInt(
+                    com.sap.adt.mcp.preferences.PreferenceInitializer.PREF_MAX_SESSIONS));
+            mcpServer.setMaxRequestMegabytes(store.getInt(
+                    com.sap.adt.mcp.preferences.PreferenceInitializer.PREF_MAX_REQUEST_SIZE));
+            mcpServer.setDefaultToolTimeoutSeconds(store.getInt(
+                    com.sap.adt.mcp.preferences.PreferenceInitializer.PREF_TOOL_TIMEOUT));
+            mcpServer.setToolTimeouts(store.getString(
+                    com.sap.adt.mcp.preferences.PreferenceInitializer.PREF_TOOL_TIMEOUTS));
+
+            String logFile = store.getString(com.sap.adt.mcp.preferences.PreferenceInitializer.PREF_LOG_FILE);
+            com.sap.adt.mcp.log.McpLog.configure(
+                    com.sap.adt.mcp.log.LogLevel.parse(store.getString(
+                            com.sap.adt.mcp.preferences.PreferenceInitializer.PREF_LOG_LEVEL),
+                            com.sap.adt.mcp.log.McpLog.DEFAULT_LEVEL),
+                    store.getInt(com.sap.adt.mcp.preferences.PreferenceInitializer.PREF_LOG_MAX_BODY),
+                    store.getInt(com.sap.adt.mcp.preferences.PreferenceInitializer.PREF_LOG_SAMPLE_RATE),
+                    logFile == null || logFile.trim().isEmpty() ? null : java.nio.file.Paths.get(logFile.trim()));
+        } catch (Exception e) {
+            // Preference store not available, keep server defaults
+        }
+    }
+
     private void writeMcpConfig() {
         String host = getServerHost();
         String adtUrl = "http://" + host + ":" + DEFAULT_PORT + "/mcp";
@@ -487,9 +566,7 @@ public class McpServerView extends ViewPart {
         if (claudeProcess != null && claudeProcess.isAlive()) {
             claudeProcess.destroy();
         }
-        if (adtClient != null) {
-            adtClient.logout();
-        }
+        disconnectSap();
         super.dispose();
     }
 